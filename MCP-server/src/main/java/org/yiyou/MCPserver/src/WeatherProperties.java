@@ -0,0 +1,236 @@
+package org.yiyou.MCPserver.src;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * 天气服务配置属性
+ */
+@ConfigurationProperties(prefix = WeatherProperties.PREFIX)
+public class WeatherProperties {
+
+    public static final String PREFIX = "framework.weather";
+
+    /**
+     * API基础URL，测试时可指向本地桩服务
+     */
+    private String baseUrl = "https://api.weather.gov";
+
+    /**
+     * 用户代理，美国国家气象局要求带上联系方式
+     */
+    private String userAgent = "WeatherApiClient/1.0 (your@email.com)";
+
+    /**
+     * 经纬度保留的小数位数，同一格点的坐标共用一条位置缓存
+     */
+    private int coordinateScale = 4;
+
+    /**
+     * 位置缓存的最大条目数，位置到预报地址的映射基本不变，不设过期
+     */
+    private long pointsMaximumSize = 10000;
+
+    /**
+     * 天气预报缓存过期时间，上游每小时更新
+     */
+    private Duration forecastTtl = Duration.ofMinutes(30);
+
+    /**
+     * 天气警报缓存过期时间
+     */
+    private Duration alertsTtl = Duration.ofMinutes(2);
+
+    /**
+     * 天气预报与警报缓存的最大条目数
+     */
+    private long maximumSize = 1000;
+
+    /**
+     * 连接池最大连接数
+     */
+    private int maxConnections = 100;
+
+    /**
+     * 等待连接的请求数上限
+     */
+    private int pendingAcquireMaxCount = 1000;
+
+    /**
+     * 建立连接超时时间
+     */
+    private Duration connectTimeout = Duration.ofSeconds(3);
+
+    /**
+     * 单个响应体的最大字节数，警报较多的州响应较大
+     */
+    private DataSize maxInMemorySize = DataSize.ofMegabytes(4);
+
+    /**
+     * 连接失败、5xx 和 429 的最大重试次数
+     */
+    private int retryMaxAttempts = 2;
+
+    /**
+     * 首次重试的退避时间，之后指数增长
+     */
+    private Duration retryMinBackoff = Duration.ofMillis(200);
+
+    /**
+     * 退避时间的随机抖动比例，避免并发重试同时打到上游
+     */
+    private double retryJitter = 0.5;
+
+    /**
+     * 天气预报工具的超时时间，包含重试
+     */
+    private Duration forecastTimeout = Duration.ofSeconds(10);
+
+    /**
+     * 天气警报工具的超时时间，包含重试
+     */
+    private Duration alertsTimeout = Duration.ofSeconds(10);
+
+    /**
+     * 同时执行的天气工具调用数上限，超出时直接返回繁忙
+     */
+    private int maxConcurrentCalls = 200;
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public void setBaseUrl(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public String getUserAgent() {
+        return userAgent;
+    }
+
+    public void setUserAgent(String userAgent) {
+        this.userAgent = userAgent;
+    }
+
+    public int getCoordinateScale() {
+        return coordinateScale;
+    }
+
+    public void setCoordinateScale(int coordinateScale) {
+        this.coordinateScale = coordinateScale;
+    }
+
+    public long getPointsMaximumSize() {
+        return pointsMaximumSize;
+    }
+
+    public void setPointsMaximumSize(long pointsMaximumSize) {
+        this.pointsMaximumSize = pointsMaximumSize;
+    }
+
+    public Duration getForecastTtl() {
+        return forecastTtl;
+    }
+
+    public void setForecastTtl(Duration forecastTtl) {
+        this.forecastTtl = forecastTtl;
+    }
+
+    public Duration getAlertsTtl() {
+        return alertsTtl;
+    }
+
+    public void setAlertsTtl(Duration alertsTtl) {
+        this.alertsTtl = alertsTtl;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getPendingAcquireMaxCount() {
+        return pendingAcquireMaxCount;
+    }
+
+    public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) {
+        this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public DataSize getMaxInMemorySize() {
+        return maxInMemorySize;
+    }
+
+    public void setMaxInMemorySize(DataSize maxInMemorySize) {
+        this.maxInMemorySize = maxInMemorySize;
+    }
+
+    public int getRetryMaxAttempts() {
+        return retryMaxAttempts;
+    }
+
+    public void setRetryMaxAttempts(int retryMaxAttempts) {
+        this.retryMaxAttempts = retryMaxAttempts;
+    }
+
+    public Duration getRetryMinBackoff() {
+        return retryMinBackoff;
+    }
+
+    public void setRetryMinBackoff(Duration retryMinBackoff) {
+        this.retryMinBackoff = retryMinBackoff;
+    }
+
+    public double getRetryJitter() {
+        return retryJitter;
+    }
+
+    public void setRetryJitter(double retryJitter) {
+        this.retryJitter = retryJitter;
+    }
+
+    public Duration getForecastTimeout() {
+        return forecastTimeout;
+    }
+
+    public void setForecastTimeout(Duration forecastTimeout) {
+        this.forecastTimeout = forecastTimeout;
+    }
+
+    public Duration getAlertsTimeout() {
+        return alertsTimeout;
+    }
+
+    public void setAlertsTimeout(Duration alertsTimeout) {
+        this.alertsTimeout = alertsTimeout;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+    }
+}
@@ -2,7 +2,8 @@ package org.yiyou.MCPserver.src;
 
 /**
  * 天气服务类，提供基于美国国家气象局API的天气预报和警报信息获取功能。
- * 该服务使用RestClient进行HTTP请求，并提供解析响应数据的方法。
+ * 该服务使用WebClient进行非阻塞HTTP请求，返回Mono，并提供解析响应数据的方法。
+ * 位置、预报和警报查询结果分别缓存，相同的并发查询只请求一次上游。
  * 
  * 功能特点：
  * - 支持通过经纬度获取天气预报
@@ -13,13 +14,27 @@ package org.yiyou.MCPserver.src;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import org.springframework.ai.tool.annotation.Tool;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.netty.channel.ChannelOption;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClient;
-import org.springframework.web.client.RestClientException;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -29,36 +44,71 @@ import java.util.stream.Collectors;
  */
 
 @Service
+@EnableConfigurationProperties(WeatherProperties.class)
 public class WeatherService {
 
     /**
-     * API基础URL（美国国家气象局）
-     * 提供天气预报和警报数据的标准接口地址
+     * HTTP客户端实例
+     * 用于发送所有天气相关的API请求，底层使用有界连接池的 Reactor Netty，请求不占用线程
+     * 初始化时配置了基础URL和默认请求头
      */
-    private static final String BASE_URL = "https://api.weather.gov";
+    private final WebClient webClient;
+
+    private final WeatherProperties properties;
 
     /**
-     * HTTP客户端实例
-     * 用于发送所有天气相关的API请求
-     * 初始化时配置了基础URL和默认请求头
+     * 位置缓存：按保留小数位后的经纬度缓存预报地址，格点映射基本不变，不设过期
+     */
+    private final AsyncCache<String, String> pointsCache;
+
+    /**
+     * 天气预报缓存：按预报地址缓存格式化后的预报文本
      */
-    private final RestClient restClient;
+    private final AsyncCache<String, String> forecastCache;
 
     /**
-     * 构造函数，初始化RestClient实例。
-     * 配置了基础URL、接受的响应类型和用户代理信息。
+     * 天气警报缓存：按州代码缓存格式化后的警报文本
+     */
+    private final AsyncCache<String, String> alertsCache;
+
+    /**
+     * 构造函数，初始化WebClient实例和各级缓存。
+     * 配置了连接池、基础URL、接受的响应类型和用户代理信息。
      * 
      * 默认请求头设置：
      * - Accept: application/geo+json 接受GeoJSON格式响应
      * - User-Agent: 客户端标识，用于API调用统计和联系
+     *
+     * Caffeine 对同一个 key 的并发加载只执行一次，相同的并发查询合并为一次上游请求，失败的结果不会被缓存
      */
-    public WeatherService() {
-
-        this.restClient = RestClient.builder()
-                .baseUrl(BASE_URL)
+    public WeatherService(WeatherProperties properties, WebClient.Builder webClientBuilder) {
+        this.properties = properties;
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("weather")
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireMaxCount(properties.getPendingAcquireMaxCount())
+                .maxIdleTime(Duration.ofSeconds(30))
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .followRedirect(true);
+        this.webClient = webClientBuilder
+                .baseUrl(properties.getBaseUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize((int) properties.getMaxInMemorySize().toBytes()))
                 .defaultHeader("Accept", "application/geo+json")
-                .defaultHeader("User-Agent", "WeatherApiClient/1.0 (your@email.com)")
+                .defaultHeader("User-Agent", properties.getUserAgent())
                 .build();
+        this.pointsCache = Caffeine.newBuilder()
+                .maximumSize(properties.getPointsMaximumSize())
+                .buildAsync();
+        this.forecastCache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getForecastTtl())
+                .buildAsync();
+        this.alertsCache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getAlertsTtl())
+                .buildAsync();
     }
 
     /**
@@ -132,58 +182,84 @@ public class WeatherService {
      * @param latitude Latitude
      * @param longitude Longitude
      * @return The forecast for the given location
-     * @throws RestClientException if the request fails
      */
-    @Tool(description = "获取特定纬度/经度的天气预报")
-    public String getWeatherForecastByLocation(double latitude, double longitude) {
+    public Mono<String> getWeatherForecastByLocation(double latitude, double longitude) {
 
         // 第一步：获取位置信息
-        // 调用API获取给定经纬度的位置数据
-        var points = restClient.get()
-                .uri("/points/{latitude},{longitude}", latitude, longitude)
-                .retrieve()
-                .body(Points.class);
+        // 按保留小数位后的经纬度查位置缓存，未命中时调用API获取预报地址
+        String lat = round(latitude);
+        String lon = round(longitude);
+        Mono<String> forecastUrl = cached(pointsCache, lat + "," + lon, key -> retrieve(webClient.get()
+                .uri("/points/{latitude},{longitude}", lat, lon), Points.class)
+                .map(points -> points.properties().forecast()));
 
         // 第二步：获取天气预报数据
-        // 使用从位置信息中获取的预报URL获取具体预报数据
-        var forecast = restClient.get().uri(points.properties().forecast()).retrieve().body(Forecast.class);
-
-        String forecastText = forecast.properties().periods().stream().map(p -> {
-            return String.format("""
+        // 使用从位置信息中获取的预报URL获取具体预报数据，结果在有效期内复用
+        return forecastUrl.flatMap(url -> cached(forecastCache, url, key -> retrieve(webClient.get().uri(key), Forecast.class)
+                .map(forecast -> forecast.properties().periods().stream().map(p -> {
+                    return String.format("""
 					%s:
 					Temperature: %s %s
 					Wind: %s %s
 					Forecast: %s
 					""", p.name(), p.temperature(), p.temperatureUnit(), p.windSpeed(), p.windDirection(),
-                    p.detailedForecast());
-        }).collect(Collectors.joining());
-
-        return forecastText;
+                            p.detailedForecast());
+                }).collect(Collectors.joining()))));
     }
 
     /**
      * 获取特定区域的警报
      * @param state Area code. Two-letter US state code (e.g. CA, NY)
      * @return Human readable alert information
-     * @throws RestClientException if the request fails
      */
-    @Tool(description = "获取美国各州的天气警报。输入是两个字母的美国州代码（例如：CA,NY）")
-    public String getAlerts(String state) {
+    public Mono<String> getAlerts(String state) {
         // 第一步：获取警报数据
-        // 调用API获取指定地区的活跃警报信息
-        Alert alert = restClient.get().uri("/alerts/active/area/{state}", state).retrieve().body(Alert.class);
-
-        return alert.features()
-                .stream()
-                .map(f -> String.format("""
+        // 调用API获取指定地区的活跃警报信息，结果在有效期内复用
+        return cached(alertsCache, state.trim().toUpperCase(Locale.ROOT), area -> retrieve(webClient.get()
+                .uri("/alerts/active/area/{state}", area), Alert.class)
+                .map(alert -> alert.features()
+                        .stream()
+                        .map(f -> String.format("""
 					Event: %s
 					Area: %s
 					Severity: %s
 					Description: %s
 					Instructions: %s
 					""", f.properties().event(), f.properties.areaDesc(), f.properties.severity(),
-                        f.properties.description(), f.properties.instruction()))
-                .collect(Collectors.joining("\n"));
+                                f.properties.description(), f.properties.instruction()))
+                        .collect(Collectors.joining("\n"))));
+    }
+
+    /**
+     * 发送请求并解析响应，连接失败、5xx 和 429 按指数退避加抖动重试
+     */
+    private <T> Mono<T> retrieve(WebClient.RequestHeadersSpec<?> request, Class<T> type) {
+        return request.retrieve()
+                .bodyToMono(type)
+                .retryWhen(Retry.backoff(properties.getRetryMaxAttempts(), properties.getRetryMinBackoff())
+                        .jitter(properties.getRetryJitter())
+                        .filter(WeatherService::isRetryable));
+    }
+
+    private static boolean isRetryable(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
+        }
+        return e instanceof WebClientRequestException;
+    }
+
+    /**
+     * 读缓存，未命中时订阅加载逻辑；并发的相同 key 共用同一个 future
+     */
+    private static Mono<String> cached(AsyncCache<String, String> cache, String key, Function<String, Mono<String>> loader) {
+        return Mono.fromFuture(() -> cache.get(key, (k, executor) -> loader.apply(k).toFuture()), true);
+    }
+
+    /**
+     * 经纬度按配置的小数位四舍五入，作为位置缓存的 key 和请求参数
+     */
+    private String round(double coordinate) {
+        return BigDecimal.valueOf(coordinate).setScale(properties.getCoordinateScale(), RoundingMode.HALF_UP).stripTrailingZeros().toPlainString();
     }
 
 }
\ No newline at end of file
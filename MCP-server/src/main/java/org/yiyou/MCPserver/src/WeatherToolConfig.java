@@ -0,0 +1,114 @@
+package org.yiyou.MCPserver.src;
+
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * 天气工具注册：直接注册异步工具规格，工具返回 Mono，调用期间不占用线程
+ * <p>
+ * 方法工具（@Tool）在 ASYNC 服务端会被包装到 boundedElastic 线程上阻塞执行，这里绕开包装。
+ * 每个工具有独立超时，所有天气工具共用一个舱壁，超出并发上限时立即返回繁忙。
+ */
+@Configuration
+public class WeatherToolConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(WeatherToolConfig.class);
+
+    private static final String FORECAST_SCHEMA = """
+            {
+              "type": "object",
+              "properties": {
+                "latitude": { "type": "number", "description": "纬度" },
+                "longitude": { "type": "number", "description": "经度" }
+              },
+              "required": ["latitude", "longitude"]
+            }
+            """;
+
+    private static final String ALERTS_SCHEMA = """
+            {
+              "type": "object",
+              "properties": {
+                "state": { "type": "string", "description": "两个字母的美国州代码" }
+              },
+              "required": ["state"]
+            }
+            """;
+
+    @Bean
+    public List<McpServerFeatures.AsyncToolSpecification> weatherTools(WeatherService weatherService, WeatherProperties properties) {
+        Semaphore bulkhead = new Semaphore(properties.getMaxConcurrentCalls());
+        return List.of(
+                new McpServerFeatures.AsyncToolSpecification(
+                        new McpSchema.Tool("getWeatherForecastByLocation", "获取特定纬度/经度的天气预报", FORECAST_SCHEMA),
+                        (exchange, arguments) -> call(bulkhead, properties.getForecastTimeout(), () -> weatherService.getWeatherForecastByLocation(
+                                number(arguments, "latitude"), number(arguments, "longitude")))),
+                new McpServerFeatures.AsyncToolSpecification(
+                        new McpSchema.Tool("getAlerts", "获取美国各州的天气警报。输入是两个字母的美国州代码（例如：CA,NY）", ALERTS_SCHEMA),
+                        (exchange, arguments) -> call(bulkhead, properties.getAlertsTimeout(), () -> weatherService.getAlerts(
+                                string(arguments, "state"))))
+        );
+    }
+
+    /**
+     * 参数校验 + 舱壁 + 超时：参数缺失或无效时不占许可直接返回错误，拿不到许可立即返回繁忙，
+     * 结果或错误都转换为工具结果返回给模型
+     */
+    private static Mono<McpSchema.CallToolResult> call(Semaphore bulkhead, Duration timeout, Supplier<Mono<String>> tool) {
+        return Mono.defer(() -> {
+            // 取参数在组装阶段完成，天气服务的请求要到订阅时才发出
+            Mono<String> request;
+            try {
+                request = tool.get();
+            } catch (IllegalArgumentException e) {
+                return Mono.just(result(e.getMessage(), true));
+            }
+            if (!bulkhead.tryAcquire()) {
+                return Mono.just(result("天气服务繁忙，请稍后重试", true));
+            }
+            return request
+                    .timeout(timeout)
+                    .map(text -> result(text, false))
+                    .onErrorResume(e -> {
+                        log.warn("天气工具调用失败 {}", e.toString());
+                        return Mono.just(result("天气服务暂时不可用：" + e.getMessage(), true));
+                    })
+                    .doFinally(signal -> bulkhead.release());
+        });
+    }
+
+    private static McpSchema.CallToolResult result(String text, boolean isError) {
+        return new McpSchema.CallToolResult(List.of(new McpSchema.TextContent(text)), isError);
+    }
+
+    private static double number(Map<String, Object> arguments, String name) {
+        Object value = arguments == null ? null : arguments.get(name);
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        try {
+            return Double.parseDouble(string(arguments, name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("参数 " + name + " 不是有效的数字：" + value);
+        }
+    }
+
+    private static String string(Map<String, Object> arguments, String name) {
+        Object value = arguments == null ? null : arguments.get(name);
+        if (value == null || value.toString().isBlank()) {
+            throw new IllegalArgumentException("缺少必填参数 " + name);
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,99 @@
+package org.yiyou.MCPserver.src;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地桩上游：按路径返回位置、预报和警报响应，记录收到的请求
+ * 可以让前几次请求返回指定的错误码，或给所有响应加上延迟
+ */
+class WeatherApiStub extends Dispatcher implements AutoCloseable {
+
+    private static final String FORECAST_PATH = "/gridpoints/TOP/31,80/forecast";
+
+    private static final String FORECAST_BODY = """
+            {"properties":{"periods":[{"number":1,"name":"Tonight","temperature":60,"temperatureUnit":"F",
+            "windSpeed":"5 mph","windDirection":"S","detailedForecast":"Clear"}]}}
+            """;
+
+    private static final String ALERTS_BODY = """
+            {"features":[{"properties":{"event":"Flood Watch","areaDesc":"Kansas","severity":"Moderate",
+            "description":"River flooding","instruction":"Stay away"}}]}
+            """;
+
+    private final MockWebServer server = new MockWebServer();
+    private final Queue<String> requests = new ConcurrentLinkedQueue<>();
+    private final Queue<Integer> failures = new ConcurrentLinkedQueue<>();
+    private volatile Duration delay = Duration.ZERO;
+
+    WeatherApiStub() throws IOException {
+        server.setDispatcher(this);
+        server.start();
+    }
+
+    String baseUrl() {
+        String url = server.url("/").toString();
+        return url.substring(0, url.length() - 1);
+    }
+
+    /**
+     * 接下来的请求依次返回这些状态码，用完后恢复正常响应
+     */
+    void fail(Integer... statusCodes) {
+        failures.addAll(List.of(statusCodes));
+    }
+
+    void delay(Duration delay) {
+        this.delay = delay;
+    }
+
+    /**
+     * 路径以 prefix 开头的请求数
+     */
+    long count(String prefix) {
+        return requests.stream().filter(path -> path.startsWith(prefix)).count();
+    }
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+        String path = request.getPath();
+        requests.add(path);
+        Integer failure = failures.poll();
+        MockResponse response;
+        if (failure != null) {
+            response = new MockResponse().setResponseCode(failure);
+        } else if (path.startsWith("/points/")) {
+            response = json("{\"properties\":{\"forecast\":\"" + server.url(FORECAST_PATH) + "\"}}");
+        } else if (path.equals(FORECAST_PATH)) {
+            response = json(FORECAST_BODY);
+        } else if (path.startsWith("/alerts/active/area/")) {
+            response = json(ALERTS_BODY);
+        } else {
+            response = new MockResponse().setResponseCode(404);
+        }
+        if (!delay.isZero()) {
+            response.setHeadersDelay(delay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return response;
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.shutdown();
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse()
+                .setHeader("Content-Type", "application/geo+json")
+                .setBody(body);
+    }
+}
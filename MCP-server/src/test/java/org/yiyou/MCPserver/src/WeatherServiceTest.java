@@ -0,0 +1,80 @@
+package org.yiyou.MCPserver.src;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 位置缓存按取整后的坐标长期保留，预报缓存到期后重新请求，相同的并发查询只打一次上游
+ */
+class WeatherServiceTest {
+
+    private static final Duration FORECAST_TTL = Duration.ofMillis(300);
+
+    private WeatherApiStub stub;
+    private WeatherService weatherService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stub = new WeatherApiStub();
+        WeatherProperties properties = new WeatherProperties();
+        properties.setBaseUrl(stub.baseUrl());
+        properties.setCoordinateScale(2);
+        properties.setForecastTtl(FORECAST_TTL);
+        weatherService = new WeatherService(properties, WebClient.builder());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        stub.close();
+    }
+
+    @Test
+    void pointsAreCachedPerRoundedCoordinate() {
+        String forecast = weatherService.getWeatherForecastByLocation(39.7456, -97.0892).block(Duration.ofSeconds(5));
+        assertTrue(forecast.contains("Tonight"), forecast);
+
+        // 保留两位小数后是同一个格点
+        weatherService.getWeatherForecastByLocation(39.7461, -97.0889).block(Duration.ofSeconds(5));
+
+        assertEquals(1, stub.count("/points/39.75,-97.09"));
+        assertEquals(1, stub.count("/points/"));
+        assertEquals(1, stub.count("/gridpoints/"));
+    }
+
+    @Test
+    void forecastExpiresAfterTtlWhilePointsStayCached() throws InterruptedException {
+        weatherService.getWeatherForecastByLocation(39.7456, -97.0892).block(Duration.ofSeconds(5));
+        Thread.sleep(FORECAST_TTL.toMillis() * 2);
+        weatherService.getWeatherForecastByLocation(39.7456, -97.0892).block(Duration.ofSeconds(5));
+
+        assertEquals(1, stub.count("/points/"));
+        assertEquals(2, stub.count("/gridpoints/"));
+    }
+
+    @Test
+    void concurrentIdenticalCallsMakeOneUpstreamRequest() {
+        // 上游足够慢，所有调用都在第一次请求返回之前到达
+        stub.delay(Duration.ofMillis(200));
+        int calls = 50;
+
+        List<String> forecasts = Flux.range(0, calls)
+                .flatMap(i -> weatherService.getWeatherForecastByLocation(39.7456, -97.0892), calls)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(calls, forecasts.size());
+        assertEquals(1, forecasts.stream().distinct().count());
+        assertEquals(1, stub.count("/points/"));
+        assertEquals(1, stub.count("/gridpoints/"));
+    }
+}
@@ -0,0 +1,119 @@
+package org.yiyou.MCPserver.src;
+
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 天气工具的超时、重试与舱壁：慢上游按工具超时返回错误，5xx 按退避重试，超出并发上限的调用立即拒绝
+ */
+class WeatherToolConfigTest {
+
+    private static final Duration MIN_BACKOFF = Duration.ofMillis(50);
+
+    private WeatherApiStub stub;
+    private WeatherProperties properties;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stub = new WeatherApiStub();
+        properties = new WeatherProperties();
+        properties.setBaseUrl(stub.baseUrl());
+        properties.setRetryMinBackoff(MIN_BACKOFF);
+        properties.setRetryJitter(0);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        stub.close();
+    }
+
+    @Test
+    void slowUpstreamTimesOut() {
+        properties.setForecastTimeout(Duration.ofMillis(300));
+        stub.delay(Duration.ofSeconds(3));
+
+        long start = System.nanoTime();
+        McpSchema.CallToolResult result = forecast(tool(), 39.7456, -97.0892).block(Duration.ofSeconds(2));
+
+        assertTrue(result.isError());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(2)) < 0);
+    }
+
+    @Test
+    void serverErrorsAreRetriedWithBackoff() {
+        stub.fail(503, 500);
+
+        long start = System.nanoTime();
+        McpSchema.CallToolResult result = forecast(tool(), 39.7456, -97.0892).block(Duration.ofSeconds(5));
+
+        assertFalse(result.isError(), text(result));
+        assertEquals(3, stub.count("/points/"));
+        // 无抖动时两次退避分别为 minBackoff 和 2 * minBackoff
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(MIN_BACKOFF.multipliedBy(3)) >= 0);
+    }
+
+    @Test
+    void clientErrorsAreNotRetried() {
+        stub.fail(404);
+
+        McpSchema.CallToolResult result = forecast(tool(), 39.7456, -97.0892).block(Duration.ofSeconds(5));
+
+        assertTrue(result.isError());
+        assertEquals(1, stub.count("/points/"));
+    }
+
+    @Test
+    void callsBeyondBulkheadAreRejectedNotQueued() {
+        properties.setMaxConcurrentCalls(2);
+        stub.delay(Duration.ofMillis(500));
+        McpServerFeatures.AsyncToolSpecification tool = tool();
+
+        Mono<List<McpSchema.CallToolResult>> inFlight = Flux.merge(forecast(tool, 10, 10), forecast(tool, 20, 20))
+                .collectList()
+                .cache();
+        inFlight.subscribe();
+        await().atMost(Duration.ofSeconds(2)).until(() -> stub.count("/points/") == 2);
+
+        // 许可已被占满，第三个调用不等待、不请求上游
+        McpSchema.CallToolResult rejected = forecast(tool, 30, 30).block(Duration.ofMillis(200));
+        assertTrue(rejected.isError());
+        assertTrue(text(rejected).contains("繁忙"), text(rejected));
+        assertEquals(2, stub.count("/points/"));
+
+        inFlight.block(Duration.ofSeconds(5)).forEach(result -> assertFalse(result.isError(), text(result)));
+        // 许可随调用结束释放
+        assertFalse(forecast(tool, 30, 30).block(Duration.ofSeconds(5)).isError());
+    }
+
+    private McpServerFeatures.AsyncToolSpecification tool() {
+        WeatherService weatherService = new WeatherService(properties, WebClient.builder());
+        return new WeatherToolConfig().weatherTools(weatherService, properties).stream()
+                .filter(tool -> tool.tool().name().equals("getWeatherForecastByLocation"))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static Mono<McpSchema.CallToolResult> forecast(McpServerFeatures.AsyncToolSpecification tool, double latitude, double longitude) {
+        return tool.call().apply(null, Map.of("latitude", latitude, "longitude", longitude));
+    }
+
+    private static String text(McpSchema.CallToolResult result) {
+        return ((McpSchema.TextContent) result.content().get(0)).text();
+    }
+}
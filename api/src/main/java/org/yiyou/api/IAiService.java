@@ -10,5 +10,8 @@ public interface IAiService {
      Map generate(String model, String message);
 
 
-    Flux<ChatResponse> generateStream(String model, String message, String conversationId);
+    /**
+     * @param ragTag 知识库标签，为空时检索全部知识库
+     */
+    Flux<ChatResponse> generateStream(String model, String message, String conversationId, String ragTag);
 }
@@ -1,6 +1,7 @@
 package org.yiyou.api;
 
 import org.springframework.web.multipart.MultipartFile;
+import org.yiyou.api.dto.IngestionJobDTO;
 import org.yiyou.api.response.Response;
 
 import java.util.List;
@@ -9,5 +10,15 @@ public interface IRAGService {
 
     Response<List<String>> queryRagTagList();
 
+    /**
+     * 提交入库任务，立即返回任务 ID
+     */
     Response<String> uploadFile(String ragTag, List<MultipartFile> files);
+
+    Response<IngestionJobDTO> queryIngestionJob(String jobId);
+
+    /**
+     * 删除标签下的一个源文档，返回删除的切片数
+     */
+    Response<Integer> deleteDocument(String ragTag, String fileName);
 }
@@ -0,0 +1,21 @@
+package org.yiyou.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 精简流式输出的增量事件（event: delta），合并了一个时间窗口内的多个 token
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatStreamDeltaDTO implements Serializable {
+
+    private String content;
+
+}
@@ -0,0 +1,30 @@
+package org.yiyou.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 精简流式输出的结束事件（event: done），用量和元数据只在结尾发送一次
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatStreamUsageDTO implements Serializable {
+
+    private String model;
+    private String finishReason;
+    private Integer promptTokens;
+    private Integer completionTokens;
+    private Integer totalTokens;
+    /**
+     * 发送的增量事件数
+     */
+    private long deltas;
+    private long elapsedMillis;
+
+}
@@ -0,0 +1,48 @@
+package org.yiyou.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * 知识库入库任务进度
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionJobDTO implements Serializable {
+
+    private String jobId;
+    private String ragTag;
+    /**
+     * RUNNING / COMPLETED / FAILED
+     */
+    private String status;
+    private int totalFiles;
+    private int completedFiles;
+    private int failedFiles;
+    private long chunks;
+    /**
+     * 新增（向量化）的切片数，重新上传的文档只向量化变化的部分
+     */
+    private long addedChunks;
+    /**
+     * 旧版本中已不存在、被删除的切片数
+     */
+    private long removedChunks;
+    private long elapsedMillis;
+    /**
+     * 每秒写入的切片数
+     */
+    private double chunksPerSecond;
+    /**
+     * 失败文件（上传序号/文件名）-> 失败原因
+     */
+    private Map<String, String> failures;
+
+}
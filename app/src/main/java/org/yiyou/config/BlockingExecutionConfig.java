@@ -0,0 +1,40 @@
+package org.yiyou.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.yiyou.trigger.config.BlockingExecutionProperties;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 阻塞调用执行配置
+ * <p>
+ * 检索、对话记忆、向量化等阻塞调用统一切换到这个 Scheduler，不占用 Tomcat 请求线程和 Reactor 的事件线程。
+ * spring.threads.virtual.enabled 开启且运行在 Java 21 及以上时使用虚拟线程（Tomcat 请求线程也由 Spring Boot 切换为虚拟线程），
+ * 否则使用有界弹性线程池。
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(BlockingExecutionProperties.class)
+public class BlockingExecutionConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler blockingScheduler(Environment environment, BlockingExecutionProperties properties) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("blocking-");
+            executor.setVirtualThreads(true);
+            log.info("阻塞调用使用虚拟线程");
+            return Schedulers.fromExecutor(executor);
+        }
+        if (environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            log.warn("当前 JVM 不支持虚拟线程（需要 Java 21），阻塞调用使用有界弹性线程池");
+        }
+        return Schedulers.newBoundedElastic(properties.getThreadCap(), properties.getQueuedTaskCap(), "blocking",
+                (int) properties.getTtl().toSeconds(), true);
+    }
+}
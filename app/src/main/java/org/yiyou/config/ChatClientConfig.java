@@ -1,16 +1,31 @@
 package org.yiyou.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.memory.MessageWindowChatMemory;
 import org.springframework.ai.chat.memory.repository.jdbc.JdbcChatMemoryRepository;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.template.st.StTemplateRenderer;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.yiyou.trigger.tools.DateTimeTools;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.yiyou.trigger.config.ChatMemoryProperties;
+import org.yiyou.trigger.config.ToolExecutionProperties;
+import org.yiyou.trigger.memory.SummarizingChatMemory;
+import org.yiyou.trigger.memory.TieredChatMemoryRepository;
+import org.yiyou.trigger.memory.TimedChatMemoryRepository;
+import org.yiyou.trigger.tools.ParallelToolCallingManager;
 
 @Configuration
+@EnableConfigurationProperties({ChatMemoryProperties.class, ToolExecutionProperties.class})
 public class ChatClientConfig {
     /**
      * 创建ChatClient
@@ -45,19 +60,61 @@ public class ChatClientConfig {
 
         return chatClientBuilder
                 .defaultSystem("你是一个人工智能，你的目的是帮助用户解答问题和提供信息，请根据上下文或调用工具回答问题。'messageType = USER'是我说的，'messageType = ASSISTANT'是你说的。")// ,你是一名虚构的动漫里小熊的智能客服，你的名字叫一二。请以友好、热情、可爱的方式回答用户问题。
-                .defaultTools(DateTimeTools.builder().build())
                 //.defaultAdvisors(SimpleLoggerAdvisor.builder().build(), MessageChatMemoryAdvisor.builder(chatMemory).build())现在是北京时间{time}，
                 .build();
     }
 
     @Bean
-    public ChatMemory chatMemory(JdbcChatMemoryRepository jdbcChatMemoryRepository){
+    @ConditionalOnProperty(prefix = ChatMemoryProperties.PREFIX, name = "compaction.enabled", havingValue = "false", matchIfMissing = true)
+    public ChatMemory chatMemory(JdbcChatMemoryRepository jdbcChatMemoryRepository,
+                                 ObjectProvider<TieredChatMemoryRepository> tieredChatMemoryRepository,
+                                 ChatMemoryProperties chatMemoryProperties,
+                                 MeterRegistry meterRegistry){
         return MessageWindowChatMemory.builder()
-                .chatMemoryRepository(jdbcChatMemoryRepository)
-                .maxMessages(200)
+                .chatMemoryRepository(new TimedChatMemoryRepository(tieredChatMemoryRepository.getIfAvailable(() -> jdbcChatMemoryRepository), meterRegistry))
+                .maxMessages(chatMemoryProperties.getMaxMessages())
                 .build();
     }
 
+    /**
+     * 滚动摘要对话记忆：超过 token 预算后旧消息在后台折叠为摘要，每轮提示词的记忆部分有上限
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = ChatMemoryProperties.PREFIX, name = "compaction.enabled", havingValue = "true")
+    public SummarizingChatMemory summarizingChatMemory(JdbcChatMemoryRepository jdbcChatMemoryRepository,
+                                                       ObjectProvider<TieredChatMemoryRepository> tieredChatMemoryRepository,
+                                                       ChatClient.Builder chatClientBuilder,
+                                                       ChatMemoryProperties chatMemoryProperties,
+                                                       MeterRegistry meterRegistry) {
+        return new SummarizingChatMemory(new TimedChatMemoryRepository(tieredChatMemoryRepository.getIfAvailable(() -> jdbcChatMemoryRepository), meterRegistry),
+                chatClientBuilder.build(), chatMemoryProperties);
+    }
+
+    /**
+     * 分层对话记忆：活跃会话读内存（多实例时以 Redis 中的窗口为准），新增消息异步批量追加写库，关闭时刷库
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = ChatMemoryProperties.PREFIX, name = "tiered", havingValue = "true", matchIfMissing = true)
+    public TieredChatMemoryRepository tieredChatMemoryRepository(JdbcChatMemoryRepository jdbcChatMemoryRepository,
+                                                                 JdbcTemplate jdbcTemplate,
+                                                                 TransactionTemplate transactionTemplate,
+                                                                 StringRedisTemplate stringRedisTemplate,
+                                                                 ChatMemoryProperties chatMemoryProperties) {
+        return new TieredChatMemoryRepository(jdbcChatMemoryRepository, jdbcTemplate, transactionTemplate, stringRedisTemplate, chatMemoryProperties);
+    }
+
+    /**
+     * 同一轮响应中的多个工具调用并发执行，替换自动配置的默认 ToolCallingManager
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = ToolExecutionProperties.PREFIX, name = "mode", havingValue = "parallel", matchIfMissing = true)
+    public ParallelToolCallingManager parallelToolCallingManager(ToolCallbackResolver toolCallbackResolver,
+                                                                 ToolExecutionExceptionProcessor toolExecutionExceptionProcessor,
+                                                                 ToolExecutionProperties toolExecutionProperties,
+                                                                 MeterRegistry meterRegistry) {
+        return new ParallelToolCallingManager(toolCallbackResolver, toolExecutionExceptionProcessor, toolExecutionProperties, meterRegistry);
+    }
+
     @Bean
     public PromptTemplate promptTemplate() {
         return PromptTemplate.builder()
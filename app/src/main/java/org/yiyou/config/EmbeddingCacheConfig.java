@@ -0,0 +1,39 @@
+package org.yiyou.config;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.function.SingletonSupplier;
+import org.yiyou.trigger.cache.CachingEmbeddingModel;
+import org.yiyou.trigger.cache.EmbeddingCache;
+import org.yiyou.trigger.config.EmbeddingCacheProperties;
+
+import java.util.function.Supplier;
+
+/**
+ * 向量缓存配置
+ */
+@Configuration
+public class EmbeddingCacheConfig {
+
+    /**
+     * 把容器中的 EmbeddingModel 包装为带缓存的实现，VectorStore 入库和检索都会经过缓存
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = EmbeddingCacheProperties.PREFIX, name = "enabled", havingValue = "true", matchIfMissing = true)
+    public static BeanPostProcessor cachingEmbeddingModelPostProcessor(ObjectProvider<EmbeddingCache> embeddingCache) {
+        Supplier<EmbeddingCache> cache = SingletonSupplier.of(embeddingCache::getObject);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof EmbeddingModel embeddingModel && !(bean instanceof CachingEmbeddingModel)) {
+                    return new CachingEmbeddingModel(embeddingModel, cache);
+                }
+                return bean;
+            }
+        };
+    }
+}
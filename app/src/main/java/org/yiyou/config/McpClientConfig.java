@@ -0,0 +1,24 @@
+package org.yiyou.config;
+
+import org.springframework.ai.mcp.customizer.McpAsyncClientCustomizer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.yiyou.trigger.mcp.McpToolCatalog;
+import reactor.core.publisher.Mono;
+
+/**
+ * MCP 客户端配置
+ */
+@Configuration
+public class McpClientConfig {
+
+    /**
+     * 服务端发出 tools/list_changed 通知时让工具目录只重新加载发出通知的那个服务
+     * 工具目录依赖 MCP 客户端，这里延迟获取，避免循环依赖
+     */
+    @Bean
+    public McpAsyncClientCustomizer toolCatalogInvalidatingCustomizer(ObjectProvider<McpToolCatalog> mcpToolCatalog) {
+        return (name, spec) -> spec.toolsChangeConsumer(tools -> Mono.fromRunnable(() -> mcpToolCatalog.ifAvailable(catalog -> catalog.invalidate(name))));
+    }
+}
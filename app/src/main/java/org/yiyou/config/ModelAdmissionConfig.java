@@ -0,0 +1,42 @@
+package org.yiyou.config;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.function.SingletonSupplier;
+import org.yiyou.trigger.admission.AdmissionControlledChatModel;
+import org.yiyou.trigger.admission.ModelAdmissionController;
+import org.yiyou.trigger.config.ModelAdmissionProperties;
+
+import java.util.function.Supplier;
+
+/**
+ * 模型调用准入控制配置
+ */
+@Configuration
+public class ModelAdmissionConfig {
+
+    /**
+     * 把容器中的 ChatModel 包装为经过准入控制的实现，ChatClient 和直接使用 ChatModel 的地方都会排队
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = ModelAdmissionProperties.PREFIX, name = "enabled", havingValue = "true", matchIfMissing = true)
+    public static BeanPostProcessor admissionControlledChatModelPostProcessor(ObjectProvider<ModelAdmissionController> admissionController,
+                                                                              Environment environment) {
+        Supplier<ModelAdmissionController> controller = SingletonSupplier.of(admissionController::getObject);
+        int estimatedCompletionTokens = environment.getProperty(ModelAdmissionProperties.PREFIX + ".estimated-completion-tokens", Integer.class, 500);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof ChatModel chatModel && !(bean instanceof AdmissionControlledChatModel)) {
+                    return new AdmissionControlledChatModel(chatModel, controller, estimatedCompletionTokens);
+                }
+                return bean;
+            }
+        };
+    }
+}
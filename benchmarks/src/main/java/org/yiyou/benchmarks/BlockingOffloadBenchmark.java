@@ -0,0 +1,80 @@
+package org.yiyou.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 阻塞调用切换到不同 Scheduler 时的并发上限：一批请求同时到达，每个请求阻塞固定时间（模拟 JDBC、Redis、向量接口）
+ * <p>
+ * 有界弹性线程池的耗时约为 请求数 / 线程上限 × 阻塞时间；虚拟线程不受线程数限制，需要 Java 21，
+ * 默认参数不包含，在 Java 21 上用 {@code -p scheduler=virtual} 单独运行。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlockingOffloadBenchmark {
+
+    @Param({"bounded-16", "bounded-64", "bounded-256"})
+    private String scheduler;
+
+    @Param({"512"})
+    private int requests;
+
+    @Param({"10"})
+    private int blockingMillis;
+
+    private Scheduler blockingScheduler;
+
+    @Setup
+    public void setUp() {
+        if ("virtual".equals(scheduler)) {
+            if (Runtime.version().feature() < 21) {
+                throw new UnsupportedOperationException("虚拟线程需要 Java 21，当前 " + Runtime.version());
+            }
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("blocking-");
+            executor.setVirtualThreads(true);
+            blockingScheduler = Schedulers.fromExecutor(executor);
+        } else {
+            int threadCap = Integer.parseInt(scheduler.substring("bounded-".length()));
+            blockingScheduler = Schedulers.newBoundedElastic(threadCap, Integer.MAX_VALUE, "blocking", 60, true);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        blockingScheduler.dispose();
+    }
+
+    @Benchmark
+    public Long burst() {
+        return Flux.range(0, requests)
+                .flatMap(i -> Mono.fromCallable(this::blockingCall).subscribeOn(blockingScheduler), requests)
+                .count()
+                .block();
+    }
+
+    private Integer blockingCall() throws InterruptedException {
+        Thread.sleep(blockingMillis);
+        return blockingMillis;
+    }
+}
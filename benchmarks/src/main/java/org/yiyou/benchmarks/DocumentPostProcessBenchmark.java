@@ -0,0 +1,60 @@
+package org.yiyou.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.yiyou.trigger.config.ContextPackingProperties;
+import org.yiyou.trigger.rag.ContextPacker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 检索结果后处理：原先按空白归一后全文去重的 lambda 与现在的 ContextPacker（近似去重 + MMR + token 预算）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentPostProcessBenchmark {
+
+    private final Query query = new Query(Samples.QUERIES.get(1));
+    private List<Document> documents;
+    private ContextPacker contextPacker;
+
+    @Setup
+    public void setUp() {
+        documents = Samples.retrievedDocuments();
+        contextPacker = new ContextPacker(new ContextPackingProperties());
+    }
+
+    /**
+     * 基线：与 ChatProfileRegistry 原先的去重逻辑一致
+     */
+    @Benchmark
+    public List<Document> legacyDistinct() {
+        return new ArrayList<>(documents.stream()
+                .map(document -> document.mutate().text(document.getText().replaceAll("[\\s\\n\\r]+", " ").trim()).build())
+                .collect(Collectors.toMap(Document::getText, Function.identity(), (a, b) -> a))
+                .values());
+    }
+
+    @Benchmark
+    public List<Document> contextPacker() {
+        return contextPacker.process(query, documents);
+    }
+}
@@ -0,0 +1,73 @@
+package org.yiyou.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.ai.vectorstore.filter.FilterExpressionConverter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionTextParser;
+import org.springframework.ai.vectorstore.pgvector.PgVectorFilterExpressionConverter;
+import org.yiyou.trigger.service.RagIngestionService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 检索过滤条件：知识库标签表达式的构建、请求中文本过滤条件的解析（ANTLR），以及转换为 PgVector 的 jsonpath
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilterExpressionBenchmark {
+
+    private static final String FILTER_TEXT = "source == 'handbook' && year >= 2024";
+
+    private final FilterExpressionConverter converter = new PgVectorFilterExpressionConverter();
+    private Filter.Expression combined;
+
+    @Setup
+    public void setUp() {
+        combined = combine(tagExpression(), new FilterExpressionTextParser().parse(FILTER_TEXT));
+    }
+
+    @Benchmark
+    public Filter.Expression buildTagExpression() {
+        return tagExpression();
+    }
+
+    /**
+     * 与 CachingDocumentRetriever 一致，每次请求新建解析器
+     */
+    @Benchmark
+    public Filter.Expression parseText() {
+        return new FilterExpressionTextParser().parse(FILTER_TEXT);
+    }
+
+    @Benchmark
+    public Filter.Expression buildAndParse() {
+        return combine(tagExpression(), new FilterExpressionTextParser().parse(FILTER_TEXT));
+    }
+
+    @Benchmark
+    public String convertToPgVector() {
+        return converter.convertExpression(combined);
+    }
+
+    private static Filter.Expression tagExpression() {
+        return new FilterExpressionBuilder().eq(RagIngestionService.RAG_TAG_METADATA_KEY, "demo").build();
+    }
+
+    private static Filter.Expression combine(Filter.Expression left, Filter.Expression right) {
+        return new Filter.Expression(Filter.ExpressionType.AND, left, right);
+    }
+}
@@ -0,0 +1,40 @@
+package org.yiyou.benchmarks;
+
+import com.hankcs.hanlp.seg.common.Term;
+import com.hankcs.hanlp.HanLP;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.yiyou.trigger.rag.HanLPTokenizer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HanLP 冷启动：每个 fork 是新 JVM，只测第一次调用，包含词典加载
+ * 对应服务启动后第一位用户的请求
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class HanLPColdStartBenchmark {
+
+    @Benchmark
+    public List<Term> firstSegment() {
+        return HanLP.segment(Samples.QUERIES.get(0));
+    }
+
+    /**
+     * 额外包含停用词词典加载
+     */
+    @Benchmark
+    public List<String> firstTokenize() {
+        return HanLPTokenizer.tokenize(Samples.QUERIES.get(0));
+    }
+}
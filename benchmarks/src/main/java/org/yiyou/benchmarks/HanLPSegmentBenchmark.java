@@ -0,0 +1,63 @@
+package org.yiyou.benchmarks;
+
+import com.hankcs.hanlp.HanLP;
+import com.hankcs.hanlp.seg.common.Term;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.yiyou.trigger.rag.HanLPTokenizer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HanLP 分词（词典已加载）：检索时对问题分词，入库时对切片分词
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HanLPSegmentBenchmark {
+
+    @Param({"0", "1", "2", "3", "4"})
+    private int queryIndex;
+
+    private String query;
+
+    @Setup
+    public void setUp() {
+        query = Samples.QUERIES.get(queryIndex);
+        // 预热词典，冷启动开销见 HanLPColdStartBenchmark
+        HanLP.segment(Samples.DOCUMENT);
+    }
+
+    @Benchmark
+    public List<Term> segmentQuery() {
+        return HanLP.segment(query);
+    }
+
+    @Benchmark
+    public List<String> tokenizeQuery() {
+        return HanLPTokenizer.tokenize(query);
+    }
+
+    @Benchmark
+    public List<String> tokenizeDocument() {
+        return HanLPTokenizer.tokenize(Samples.DOCUMENT);
+    }
+
+    @Benchmark
+    public List<String> documentKeywords() {
+        return HanLPTokenizer.keywords(Samples.DOCUMENT, 32);
+    }
+}
@@ -0,0 +1,50 @@
+package org.yiyou.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.yiyou.config.RedisKeySerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次 Redis 读写都会经过 Key 序列化
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisKeySerializerBenchmark {
+
+    private static final String KEY = "rag:retrieval:demo:小熊一二的生日是哪天";
+
+    private RedisKeySerializer serializer;
+    private byte[] serialized;
+
+    @Setup
+    public void setUp() throws Exception {
+        serializer = new RedisKeySerializer("ai-agent:", StandardCharsets.UTF_8.name());
+        serializer.afterPropertiesSet();
+        serialized = serializer.serialize(KEY);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(KEY);
+    }
+
+    @Benchmark
+    public String deserialize() {
+        return serializer.deserialize(serialized);
+    }
+}
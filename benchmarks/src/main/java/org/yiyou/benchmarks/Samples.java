@@ -0,0 +1,50 @@
+package org.yiyou.benchmarks;
+
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试共用的样例数据，贴近线上的问题和知识库切片
+ */
+final class Samples {
+
+    static final List<String> QUERIES = List.of(
+            "小熊一二的生日是哪天",
+            "如何申请退货退款",
+            "会员积分可以兑换哪些礼品？",
+            "What is the refund policy for damaged items?",
+            "北京明天的天气怎么样，需要带伞吗");
+
+    static final String DOCUMENT = """
+            小熊一二是一只生活在森林边上的棕色小熊，最喜欢的食物是蜂蜜和苹果。
+            每年春天，一二都会和朋友们一起在河边举办野餐会，邀请森林里的小动物参加。
+            会员在订单签收后七天内可以申请无理由退货，商品需保持完好并附带原包装。
+            退款会在仓库验收后三个工作日内原路返回，使用积分抵扣的部分将退回积分账户。
+            积分可以兑换周边礼品、优惠券和限量版玩偶，兑换后的礼品不支持退换。
+            """;
+
+    private Samples() {
+    }
+
+    /**
+     * 模拟一次检索返回的 20 个切片，其中约一半是只差空白或个别字的近似重复
+     */
+    static List<Document> retrievedDocuments() {
+        String[] sentences = DOCUMENT.strip().split("\n");
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String sentence = sentences[i % sentences.length].strip();
+            String text = i % 2 == 0 ? sentence + sentences[(i + 1) % sentences.length].strip() : "  " + sentence.replace("，", "， ") + "\n";
+            documents.add(Document.builder()
+                    .id("doc-" + i)
+                    .text(text)
+                    .metadata(Map.of("ragTag", "demo"))
+                    .score(1.0 - i * 0.03)
+                    .build());
+        }
+        return documents;
+    }
+}
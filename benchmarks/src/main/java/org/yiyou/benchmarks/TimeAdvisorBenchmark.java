@@ -0,0 +1,55 @@
+package org.yiyou.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.yiyou.trigger.advisor.TimeAdvisor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TimeAdvisor 每次请求都会复制一份 Prompt 并替换系统提示词中的 {time}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimeAdvisorBenchmark {
+
+    private TimeAdvisor timeAdvisor;
+    private ChatClientRequest request;
+
+    @Setup
+    public void setUp() {
+        timeAdvisor = TimeAdvisor.builder().build();
+        Prompt prompt = new Prompt(List.of(
+                new SystemMessage("你是一个乐于助人的助手，当前时间是 {time}。请结合知识库内容回答用户的问题，不知道时直接说明。"),
+                new UserMessage(Samples.QUERIES.get(0))));
+        request = ChatClientRequest.builder()
+                .prompt(prompt)
+                .context(Map.of("time", LocalDateTime.now().toString()))
+                .build();
+    }
+
+    @Benchmark
+    public ChatClientRequest before() {
+        // TimeAdvisor 不使用 advisorChain
+        return timeAdvisor.before(request, null);
+    }
+}
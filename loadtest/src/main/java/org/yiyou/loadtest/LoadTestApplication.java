@@ -0,0 +1,81 @@
+package org.yiyou.loadtest;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.yiyou.AppApplication;
+import org.yiyou.loadtest.driver.LoadTestDriver;
+import org.yiyou.loadtest.stub.StubMcpServer;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 端到端压测入口：启动内嵌 Redis 和桩 MCP 服务，以 loadtest 配置启动 app，跑完负载后输出报告并退出
+ * <p>
+ * 配置见 application-loadtest.yaml，可用命令行参数覆盖，例如 --framework.loadtest.workload.concurrency=64
+ */
+public class LoadTestApplication {
+
+    private static final String PROFILE = "loadtest";
+
+    public static void main(String[] args) throws Exception {
+        StandardEnvironment bootstrap = bootstrapEnvironment(args);
+        LoadTestProperties properties = Binder.get(bootstrap).bindOrCreate(LoadTestProperties.PREFIX, LoadTestProperties.class);
+
+        int redisPort = freePort();
+        RedisServer redis = RedisServer.newRedisServer()
+                .port(redisPort)
+                .setting("bind 127.0.0.1")
+                .setting("requirepass " + bootstrap.getRequiredProperty("spring.data.redis.password"))
+                .build();
+        redis.start();
+        try (StubMcpServer mcp = StubMcpServer.start(properties.getMcp())) {
+            List<String> arguments = new ArrayList<>(List.of(args));
+            arguments.add("--spring.data.redis.port=" + redisPort);
+            arguments.add("--spring.ai.mcp.client.sse.connections.server1.url=" + mcp.url());
+            arguments.add("--spring.ai.mcp.client.sse.connections.server1.sse-endpoint=" + StubMcpServer.WEATHER_SSE_ENDPOINT);
+            arguments.add("--spring.ai.mcp.client.sse.connections.amap-amap-sse.url=" + mcp.url());
+            arguments.add("--spring.ai.mcp.client.sse.connections.amap-amap-sse.sse-endpoint=" + StubMcpServer.AMAP_SSE_ENDPOINT);
+
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(AppApplication.class)
+                    .profiles(PROFILE)
+                    .run(arguments.toArray(String[]::new));
+            try {
+                String baseUrl = "http://127.0.0.1:" + context.getEnvironment().getRequiredProperty("local.server.port");
+                new LoadTestDriver(baseUrl, context.getBean(LoadTestProperties.class).getWorkload()).run();
+            } finally {
+                SpringApplication.exit(context);
+            }
+        } finally {
+            redis.stop();
+        }
+    }
+
+    /**
+     * app 启动前需要知道 Redis 密码和桩服务的延迟，这里先按与 app 相同的优先级（命令行 > loadtest 配置文件）读出
+     */
+    private static StandardEnvironment bootstrapEnvironment(String[] args) throws IOException {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new SimpleCommandLinePropertySource(args));
+        for (PropertySource<?> propertySource : new YamlPropertySourceLoader().load(PROFILE, new ClassPathResource("application-" + PROFILE + ".yaml"))) {
+            environment.getPropertySources().addLast(propertySource);
+        }
+        return environment;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.yiyou.loadtest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 压测配置属性：桩模型的延迟特征和压测负载
+ */
+@Data
+@ConfigurationProperties(prefix = LoadTestProperties.PREFIX)
+public class LoadTestProperties {
+
+    public static final String PREFIX = "framework.loadtest";
+
+    private Chat chat = new Chat();
+
+    private Embedding embedding = new Embedding();
+
+    private Mcp mcp = new Mcp();
+
+    private Workload workload = new Workload();
+
+    /**
+     * 桩对话模型
+     */
+    @Data
+    public static class Chat {
+
+        /**
+         * 首 token 延迟
+         */
+        private Duration ttft = Duration.ofMillis(300);
+
+        /**
+         * 相邻 token 的间隔
+         */
+        private Duration interTokenDelay = Duration.ofMillis(20);
+
+        /**
+         * 每次回答输出的 token 数
+         */
+        private int completionTokens = 100;
+
+        /**
+         * 每 N 个请求先发起一次工具调用，0 表示不调用工具
+         */
+        private int toolCallEvery = 0;
+
+        private String toolName = "getAlerts";
+
+        private String toolArguments = "{\"state\":\"CA\"}";
+    }
+
+    /**
+     * 桩向量模型
+     */
+    @Data
+    public static class Embedding {
+
+        private int dimensions = 1024;
+
+        /**
+         * 每次调用（一批文本）的延迟
+         */
+        private Duration latency = Duration.ofMillis(50);
+    }
+
+    /**
+     * 进程内 MCP 服务
+     */
+    @Data
+    public static class Mcp {
+
+        /**
+         * 工具调用延迟
+         */
+        private Duration toolLatency = Duration.ofMillis(200);
+    }
+
+    /**
+     * 压测负载
+     */
+    @Data
+    public static class Workload {
+
+        /**
+         * 压测的流式接口
+         */
+        private String endpoint = "/ai/chat/generateStream";
+
+        /**
+         * 对话配置名，为空时使用服务端默认配置
+         */
+        private String profile;
+
+        /**
+         * 知识库标签，压测前上传 knowledge 文件到该标签
+         */
+        private String ragTag = "loadtest";
+
+        private boolean seed = true;
+
+        /**
+         * 并发用户数，每个用户串行发送请求
+         */
+        private int concurrency = 32;
+
+        private Duration warmup = Duration.ofSeconds(10);
+
+        private Duration duration = Duration.ofSeconds(60);
+
+        /**
+         * 每个会话的轮数，之后换新会话，控制对话记忆的长度
+         */
+        private int turnsPerConversation = 5;
+
+        private Duration requestTimeout = Duration.ofSeconds(60);
+
+        /**
+         * 报告输出目录
+         */
+        private String reportDir = "target/loadtest";
+
+        private List<String> messages = new ArrayList<>(List.of(
+                "小熊一二最喜欢吃什么",
+                "如何申请退货退款",
+                "会员积分可以兑换哪些礼品？",
+                "加州现在有天气警报吗",
+                "帮我总结一下退款多久能到账"));
+    }
+}
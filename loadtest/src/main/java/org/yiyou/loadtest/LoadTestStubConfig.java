@@ -0,0 +1,45 @@
+package org.yiyou.loadtest;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.yiyou.loadtest.stub.InMemoryVectorStore;
+import org.yiyou.loadtest.stub.StubChatModel;
+import org.yiyou.loadtest.stub.StubEmbeddingModel;
+
+/**
+ * 压测替身：桩对话模型、桩向量模型、内存向量库
+ * 供应商和 pgvector 的自动配置在 application-loadtest.yaml 中关闭，其余 Bean（准入控制、缓存、记忆、工具调用）与线上一致
+ */
+@Profile("loadtest")
+@Configuration
+@EnableConfigurationProperties(LoadTestProperties.class)
+public class LoadTestStubConfig {
+
+    @Bean
+    public ChatModel stubChatModel(LoadTestProperties loadTestProperties, ObjectProvider<ToolCallingManager> toolCallingManager) {
+        return new StubChatModel(loadTestProperties.getChat(), toolCallingManager);
+    }
+
+    @Bean
+    public EmbeddingModel stubEmbeddingModel(LoadTestProperties loadTestProperties) {
+        return new StubEmbeddingModel(loadTestProperties.getEmbedding());
+    }
+
+    /**
+     * 注入的是经过向量缓存包装后的 EmbeddingModel，入库和检索路径与线上相同
+     * 同时作为 ChunkRepository，优先于按主键查询 pgvector 表的实现
+     */
+    @Bean
+    @Primary
+    public InMemoryVectorStore vectorStore(EmbeddingModel embeddingModel) {
+        return new InMemoryVectorStore(SimpleVectorStore.builder(embeddingModel).build());
+    }
+}
@@ -0,0 +1,187 @@
+package org.yiyou.loadtest.driver;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.StringUtils;
+import org.yiyou.api.dto.IngestionJobDTO;
+import org.yiyou.api.response.Response;
+import org.yiyou.loadtest.LoadTestProperties;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * 压测驱动：先上传知识库，再按固定并发循环请求流式接口，预热阶段的结果不计入报告
+ * 每个并发用户串行发送请求，是闭环负载，吞吐随服务端耗时变化
+ */
+@Slf4j
+public class LoadTestDriver {
+
+    private static final Duration INGESTION_TIMEOUT = Duration.ofMinutes(5);
+
+    private final String baseUrl;
+    private final LoadTestProperties.Workload workload;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public LoadTestDriver(String baseUrl, LoadTestProperties.Workload workload) {
+        this.baseUrl = baseUrl;
+        this.workload = workload;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public LoadTestReport run() throws Exception {
+        IngestionJobDTO ingestion = workload.isSeed() ? seed() : null;
+
+        log.info("预热 {}，并发 {}", workload.getWarmup(), workload.getConcurrency());
+        phase("warmup", workload.getWarmup());
+
+        log.info("压测 {}，并发 {}，接口 {}", workload.getDuration(), workload.getConcurrency(), workload.getEndpoint());
+        long start = System.nanoTime();
+        List<Sample> samples = phase("measure", workload.getDuration());
+        LoadTestReport report = LoadTestReport.of(workload.getEndpoint(), workload.getConcurrency(), System.nanoTime() - start, samples, ingestion);
+
+        Path file = Path.of(workload.getReportDir(), "report-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        Files.createDirectories(file.getParent());
+        objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+        log.info("压测结果（{}）\n{}", file.toAbsolutePath(), report);
+        return report;
+    }
+
+    /**
+     * 上传 classpath:loadtest/knowledge.md 并等待入库完成
+     */
+    private IngestionJobDTO seed() throws Exception {
+        byte[] content = new ClassPathResource("loadtest/knowledge.md").getContentAsByteArray();
+        String boundary = "loadtest-" + UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"knowledge.md\"\r\n"
+                + "Content-Type: text/markdown\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.write(content);
+        body.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        HttpRequest upload = HttpRequest.newBuilder(URI.create(baseUrl + "/ai/rag/file/upload?ragTag=" + encode(workload.getRagTag())))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+        Response<String> submitted = objectMapper.readValue(httpClient.send(upload, HttpResponse.BodyHandlers.ofString()).body(),
+                new TypeReference<Response<String>>() {});
+        if (!"0000".equals(submitted.getCode())) {
+            throw new IllegalStateException("知识库上传失败：" + submitted.getMessage());
+        }
+
+        long deadline = System.nanoTime() + INGESTION_TIMEOUT.toNanos();
+        HttpRequest query = HttpRequest.newBuilder(URI.create(baseUrl + "/ai/rag/job/" + submitted.getData())).GET().build();
+        while (System.nanoTime() < deadline) {
+            IngestionJobDTO job = objectMapper.readValue(httpClient.send(query, HttpResponse.BodyHandlers.ofString()).body(),
+                    new TypeReference<Response<IngestionJobDTO>>() {}).getData();
+            if (job != null && !"RUNNING".equals(job.getStatus())) {
+                log.info("知识库入库结束 {} 切片 {} 耗时 {}ms", job.getStatus(), job.getChunks(), job.getElapsedMillis());
+                return job;
+            }
+            Thread.sleep(200);
+        }
+        throw new IllegalStateException("知识库入库超时：" + INGESTION_TIMEOUT);
+    }
+
+    private List<Sample> phase(String name, Duration duration) throws Exception {
+        if (duration.isZero()) {
+            return List.of();
+        }
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(workload.getConcurrency(), new CustomizableThreadFactory("loadtest-" + name + "-"));
+        try {
+            List<Future<List<Sample>>> users = new ArrayList<>(workload.getConcurrency());
+            for (int i = 0; i < workload.getConcurrency(); i++) {
+                int user = i;
+                users.add(executor.submit(() -> user(name, user, deadline)));
+            }
+            List<Sample> samples = new ArrayList<>();
+            for (Future<List<Sample>> user : users) {
+                samples.addAll(user.get());
+            }
+            return samples;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Sample> user(String phase, int user, long deadline) {
+        List<Sample> samples = new ArrayList<>();
+        for (int sequence = 0; System.nanoTime() < deadline; sequence++) {
+            String conversationId = phase + "-" + user + "-" + sequence / Math.max(1, workload.getTurnsPerConversation());
+            String message = workload.getMessages().get((user + sequence) % workload.getMessages().size());
+            samples.add(request(conversationId, message));
+        }
+        return samples;
+    }
+
+    private Sample request(String conversationId, String message) {
+        StringBuilder uri = new StringBuilder(baseUrl).append(workload.getEndpoint())
+                .append("?conversationId=").append(encode(conversationId))
+                .append("&message=").append(encode(message));
+        if (StringUtils.hasText(workload.getRagTag())) {
+            uri.append("&ragTag=").append(encode(workload.getRagTag()));
+        }
+        if (StringUtils.hasText(workload.getProfile())) {
+            uri.append("&profile=").append(encode(workload.getProfile()));
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri.toString()))
+                .header("Accept", "text/event-stream")
+                .timeout(workload.getRequestTimeout())
+                .GET()
+                .build();
+
+        long start = System.nanoTime();
+        long ttft = -1;
+        int events = 0;
+        try {
+            HttpResponse<Stream<String>> response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
+            try (Stream<String> lines = response.body()) {
+                Iterator<String> iterator = lines.iterator();
+                while (iterator.hasNext()) {
+                    if (iterator.next().startsWith("data:") && events++ == 0) {
+                        ttft = System.nanoTime() - start;
+                    }
+                }
+            }
+            return new Sample(response.statusCode(), System.nanoTime() - start, ttft, events);
+        } catch (IOException e) {
+            log.debug("请求失败 {}", e.toString());
+            return new Sample(-1, System.nanoTime() - start, ttft, events);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Sample(-1, System.nanoTime() - start, ttft, events);
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
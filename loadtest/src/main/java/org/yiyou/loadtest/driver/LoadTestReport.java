@@ -0,0 +1,106 @@
+package org.yiyou.loadtest.driver;
+
+import lombok.Data;
+import org.yiyou.api.dto.IngestionJobDTO;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 压测报告：吞吐、总耗时和首 token 分位数，只统计成功的请求
+ */
+@Data
+public class LoadTestReport {
+
+    private String endpoint;
+    private int concurrency;
+    private double durationSeconds;
+    private long requests;
+    private long succeeded;
+    /**
+     * 被准入控制拒绝（429）的请求数
+     */
+    private long rejected;
+    private long failed;
+    /**
+     * 每秒完成的请求数
+     */
+    private double throughput;
+    /**
+     * 每秒收到的流式事件数，近似输出 token 吞吐
+     */
+    private double eventsPerSecond;
+    private Distribution latencyMillis;
+    private Distribution ttftMillis;
+    /**
+     * 压测前知识库上传任务的结果，未上传时为空
+     */
+    private IngestionJobDTO ingestion;
+
+    static LoadTestReport of(String endpoint, int concurrency, long elapsedNanos, List<Sample> samples, IngestionJobDTO ingestion) {
+        List<Sample> succeeded = samples.stream().filter(Sample::succeeded).toList();
+        double seconds = elapsedNanos / 1e9;
+        LoadTestReport report = new LoadTestReport();
+        report.setEndpoint(endpoint);
+        report.setConcurrency(concurrency);
+        report.setDurationSeconds(seconds);
+        report.setRequests(samples.size());
+        report.setSucceeded(succeeded.size());
+        report.setRejected(samples.stream().filter(sample -> sample.status() == 429).count());
+        report.setFailed(samples.size() - succeeded.size() - report.getRejected());
+        report.setThroughput(succeeded.size() / seconds);
+        report.setEventsPerSecond(succeeded.stream().mapToLong(Sample::events).sum() / seconds);
+        report.setLatencyMillis(Distribution.of(succeeded.stream().mapToLong(Sample::latencyNanos).toArray()));
+        report.setTtftMillis(Distribution.of(succeeded.stream().mapToLong(Sample::ttftNanos).toArray()));
+        report.setIngestion(ingestion);
+        return report;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("""
+                        接口 %s  并发 %d  时长 %.1fs
+                        请求 %d  成功 %d  拒绝(429) %d  失败 %d
+                        吞吐 %.2f req/s  %.1f events/s
+                        耗时   ms  p50 %.1f  p90 %.1f  p99 %.1f  max %.1f
+                        首token ms  p50 %.1f  p90 %.1f  p99 %.1f  max %.1f
+                        入库 %s""",
+                endpoint, concurrency, durationSeconds,
+                requests, succeeded, rejected, failed,
+                throughput, eventsPerSecond,
+                latencyMillis.getP50(), latencyMillis.getP90(), latencyMillis.getP99(), latencyMillis.getMax(),
+                ttftMillis.getP50(), ttftMillis.getP90(), ttftMillis.getP99(), ttftMillis.getMax(),
+                ingestion == null ? "-" : String.format("%s 切片 %d 耗时 %dms %.1f chunks/s",
+                        ingestion.getStatus(), ingestion.getChunks(), ingestion.getElapsedMillis(), ingestion.getChunksPerSecond()));
+    }
+
+    /**
+     * 毫秒分位数，按最近秩法计算
+     */
+    @Data
+    public static class Distribution {
+
+        private double p50;
+        private double p90;
+        private double p99;
+        private double max;
+
+        static Distribution of(long[] nanos) {
+            Distribution distribution = new Distribution();
+            if (nanos.length == 0) {
+                return distribution;
+            }
+            Arrays.sort(nanos);
+            distribution.setP50(percentile(nanos, 0.50));
+            distribution.setP90(percentile(nanos, 0.90));
+            distribution.setP99(percentile(nanos, 0.99));
+            distribution.setMax(nanos[nanos.length - 1] / 1e6);
+            return distribution;
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.yiyou.loadtest.driver;
+
+/**
+ * 一次请求的结果
+ *
+ * @param status      HTTP 状态码，连接失败或超时为 -1
+ * @param latencyNanos 从发出请求到流结束的耗时
+ * @param ttftNanos   从发出请求到收到第一个事件的耗时，没有事件时为 -1
+ * @param events      收到的流式事件数
+ */
+record Sample(int status, long latencyNanos, long ttftNanos, int events) {
+
+    boolean succeeded() {
+        return status == 200 && events > 0;
+    }
+}
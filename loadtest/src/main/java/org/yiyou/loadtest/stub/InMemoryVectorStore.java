@@ -0,0 +1,54 @@
+package org.yiyou.loadtest.stub;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.yiyou.trigger.rag.ChunkRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存向量库：检索委托给 SimpleVectorStore，另外按 ID 保存切片，替代线上按主键查询向量表的 ChunkRepository
+ */
+public class InMemoryVectorStore implements VectorStore, ChunkRepository {
+
+    private final SimpleVectorStore delegate;
+    private final Map<String, Document> documents = new ConcurrentHashMap<>();
+
+    public InMemoryVectorStore(SimpleVectorStore delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        delegate.add(documents);
+        documents.forEach(document -> this.documents.put(document.getId(), document));
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        delegate.delete(idList);
+        idList.forEach(documents::remove);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        throw new UnsupportedOperationException("压测不按过滤条件删除");
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        return delegate.similaritySearch(request);
+    }
+
+    @Override
+    public List<Document> findByIds(Collection<String> ids) {
+        return ids.stream().map(documents::get).filter(Objects::nonNull).toList();
+    }
+}
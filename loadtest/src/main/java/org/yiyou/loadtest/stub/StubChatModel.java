@@ -0,0 +1,146 @@
+package org.yiyou.loadtest.stub;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.yiyou.loadtest.LoadTestProperties;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 桩对话模型：按配置的首 token 延迟和 token 间隔流式输出固定回答
+ * <p>
+ * 配置了 tool-call-every 时，每 N 个请求第一轮先返回一次工具调用，经 ToolCallingManager 执行（会走到 MCP）后再输出回答，
+ * 与真实供应商模型内部的工具调用循环一致。
+ */
+public class StubChatModel implements ChatModel {
+
+    private static final String MODEL = "loadtest-stub";
+
+    private static final String ANSWER = "根据知识库中的内容，会员在签收后七天内可以申请无理由退货，退款会在仓库验收后三个工作日内原路返回。"
+            + "小熊一二最喜欢蜂蜜和苹果，每年春天都会在河边举办野餐会。如果还有其他问题，欢迎继续提问。";
+
+    private final LoadTestProperties.Chat properties;
+    private final ObjectProvider<ToolCallingManager> toolCallingManager;
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+    private final AtomicLong requests = new AtomicLong();
+
+    public StubChatModel(LoadTestProperties.Chat properties, ObjectProvider<ToolCallingManager> toolCallingManager) {
+        this.properties = properties;
+        this.toolCallingManager = toolCallingManager;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        List<ChatResponse> responses = stream(prompt).collectList().block();
+        StringBuilder text = new StringBuilder();
+        ChatResponse last = null;
+        for (ChatResponse response : responses) {
+            text.append(response.getResult().getOutput().getText());
+            last = response;
+        }
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text.toString()), last.getResult().getMetadata())), last.getMetadata());
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+            ChatResponse toolCall = toolCall(prompt);
+            if (toolCall == null) {
+                return answer(prompt);
+            }
+            // 工具执行是阻塞调用，放到弹性线程上
+            return Mono.delay(properties.getTtft())
+                    .then(Mono.fromCallable(() -> toolCallingManager.getObject().executeToolCalls(prompt, toolCall))
+                            .subscribeOn(Schedulers.boundedElastic()))
+                    .flatMapMany(result -> result.returnDirect()
+                            ? Flux.just(ChatResponse.builder().from(toolCall).generations(ToolExecutionResult.buildGenerations(result)).build())
+                            : stream(new Prompt(result.conversationHistory(), prompt.getOptions())));
+        });
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return ToolCallingChatOptions.builder().model(MODEL).build();
+    }
+
+    private Flux<ChatResponse> answer(Prompt prompt) {
+        int promptTokens = promptTokens(prompt);
+        int completionTokens = Math.max(1, properties.getCompletionTokens());
+        String id = UUID.randomUUID().toString();
+        return Flux.range(0, completionTokens)
+                .concatMap(i -> Mono.just(i).delayElement(i == 0 ? properties.getTtft() : properties.getInterTokenDelay()))
+                .map(i -> chunk(id, i, completionTokens, promptTokens));
+    }
+
+    private static ChatResponse chunk(String id, int index, int completionTokens, int promptTokens) {
+        boolean last = index == completionTokens - 1;
+        String token = String.valueOf(ANSWER.charAt(index % ANSWER.length()));
+        ChatGenerationMetadata generationMetadata = last
+                ? ChatGenerationMetadata.builder().finishReason("STOP").build()
+                : ChatGenerationMetadata.NULL;
+        ChatResponseMetadata.Builder metadata = ChatResponseMetadata.builder().id(id).model(MODEL);
+        if (last) {
+            metadata.usage(new DefaultUsage(promptTokens, completionTokens));
+        }
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(token), generationMetadata)), metadata.build());
+    }
+
+    /**
+     * 第一轮且轮到工具调用、请求中带有该工具时返回工具调用响应，否则返回 null
+     * MCP 工具名带客户端前缀，按后缀匹配
+     */
+    private ChatResponse toolCall(Prompt prompt) {
+        List<Message> instructions = prompt.getInstructions();
+        if (properties.getToolCallEvery() <= 0
+                || instructions.isEmpty()
+                || instructions.get(instructions.size() - 1).getMessageType() == MessageType.TOOL
+                || !(prompt.getOptions() instanceof ToolCallingChatOptions options)
+                || Boolean.FALSE.equals(options.getInternalToolExecutionEnabled())) {
+            return null;
+        }
+        String toolName = options.getToolCallbacks().stream()
+                .map(callback -> callback.getToolDefinition().name())
+                .filter(name -> name.endsWith(properties.getToolName()))
+                .findFirst()
+                .orElse(null);
+        if (toolName == null || requests.incrementAndGet() % properties.getToolCallEvery() != 0) {
+            return null;
+        }
+        AssistantMessage.ToolCall toolCall = new AssistantMessage.ToolCall(
+                "call_" + UUID.randomUUID(), "function", toolName, properties.getToolArguments());
+        AssistantMessage message = new AssistantMessage("", Map.of(), List.of(toolCall));
+        return new ChatResponse(List.of(new Generation(message, ChatGenerationMetadata.builder().finishReason("TOOL_CALLS").build())),
+                ChatResponseMetadata.builder().model(MODEL).usage(new DefaultUsage(promptTokens(prompt), 20)).build());
+    }
+
+    private int promptTokens(Prompt prompt) {
+        int tokens = 0;
+        for (Message message : prompt.getInstructions()) {
+            if (message.getText() != null) {
+                tokens += tokenCountEstimator.estimate(message.getText());
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,77 @@
+package org.yiyou.loadtest.stub;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.yiyou.loadtest.LoadTestProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 桩向量模型：把字符二元组哈希到固定维度后归一化，同一文本总是得到同一向量，字面相近的文本向量也相近
+ * 每次调用按配置的延迟阻塞，模拟远程向量接口
+ */
+public class StubEmbeddingModel implements EmbeddingModel {
+
+    private final LoadTestProperties.Embedding properties;
+
+    public StubEmbeddingModel(LoadTestProperties.Embedding properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        sleep();
+        List<Embedding> embeddings = new ArrayList<>(request.getInstructions().size());
+        for (int i = 0; i < request.getInstructions().size(); i++) {
+            embeddings.add(new Embedding(vector(request.getInstructions().get(i)), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        return properties.getDimensions();
+    }
+
+    private float[] vector(String text) {
+        float[] vector = new float[properties.getDimensions()];
+        String value = text == null || text.isEmpty() ? " " : text;
+        for (int i = 0; i < value.length(); i++) {
+            int hash = value.charAt(i) * 31 + (i + 1 < value.length() ? value.charAt(i + 1) : 0);
+            hash ^= hash >>> 16;
+            vector[Math.floorMod(hash, vector.length)] += (hash & 1) == 0 ? 1f : -1f;
+        }
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+
+    private void sleep() {
+        if (properties.getLatency().isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(properties.getLatency().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("向量调用被中断", e);
+        }
+    }
+}
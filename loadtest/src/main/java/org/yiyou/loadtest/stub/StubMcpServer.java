@@ -0,0 +1,89 @@
+package org.yiyou.loadtest.stub;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.server.McpAsyncServer;
+import io.modelcontextprotocol.server.McpServer;
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.server.transport.WebFluxSseServerTransportProvider;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.yiyou.loadtest.LoadTestProperties;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.util.List;
+
+/**
+ * 进程内 MCP 服务：在一个随机端口上提供两个 SSE 端点，分别替代天气服务（/sse）和高德（/amap/sse）
+ * 工具名与真实服务一致，按配置的延迟返回固定结果，不占用线程
+ */
+public class StubMcpServer implements AutoCloseable {
+
+    public static final String WEATHER_SSE_ENDPOINT = "/sse";
+    public static final String AMAP_SSE_ENDPOINT = "/amap/sse";
+
+    private static final String FORECAST_SCHEMA = """
+            {"type":"object","properties":{"latitude":{"type":"number"},"longitude":{"type":"number"}},"required":["latitude","longitude"]}
+            """;
+    private static final String ALERTS_SCHEMA = """
+            {"type":"object","properties":{"state":{"type":"string"}},"required":["state"]}
+            """;
+    private static final String CITY_SCHEMA = """
+            {"type":"object","properties":{"city":{"type":"string"}},"required":["city"]}
+            """;
+
+    private final LoadTestProperties.Mcp properties;
+    private final List<McpAsyncServer> servers;
+    private final DisposableServer httpServer;
+
+    private StubMcpServer(LoadTestProperties.Mcp properties) {
+        this.properties = properties;
+        ObjectMapper objectMapper = new ObjectMapper();
+        WebFluxSseServerTransportProvider weather = new WebFluxSseServerTransportProvider(objectMapper, "", "/mcp/message", WEATHER_SSE_ENDPOINT);
+        WebFluxSseServerTransportProvider amap = new WebFluxSseServerTransportProvider(objectMapper, "", "/amap/mcp/message", AMAP_SSE_ENDPOINT);
+        this.servers = List.of(
+                server(weather, "loadtest-weather",
+                        tool("getWeatherForecastByLocation", "获取特定纬度/经度的天气预报", FORECAST_SCHEMA, "未来三天晴，最高气温 24℃，最低气温 15℃，西北风 3 级。"),
+                        tool("getAlerts", "获取美国各州的天气警报", ALERTS_SCHEMA, "当前没有生效的天气警报。")),
+                server(amap, "loadtest-amap",
+                        tool("maps_weather", "根据城市名称查询天气", CITY_SCHEMA, "北京：多云，18℃~26℃，东南风 2 级。")));
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(weather.getRouterFunction().and(amap.getRouterFunction()));
+        this.httpServer = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+    }
+
+    public static StubMcpServer start(LoadTestProperties.Mcp properties) {
+        return new StubMcpServer(properties);
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + httpServer.port();
+    }
+
+    @Override
+    public void close() {
+        servers.forEach(server -> server.closeGracefully().onErrorComplete().block());
+        httpServer.disposeNow();
+    }
+
+    private static McpAsyncServer server(WebFluxSseServerTransportProvider transport, String name, McpServerFeatures.AsyncToolSpecification... tools) {
+        return McpServer.async(transport)
+                .serverInfo(name, "1.0.0")
+                .capabilities(McpSchema.ServerCapabilities.builder().tools(true).build())
+                .tools(tools)
+                .build();
+    }
+
+    private McpServerFeatures.AsyncToolSpecification tool(String name, String description, String schema, String result) {
+        return new McpServerFeatures.AsyncToolSpecification(
+                new McpSchema.Tool(name, description, schema),
+                (exchange, arguments) -> Mono.delay(properties.getToolLatency())
+                        .thenReturn(new McpSchema.CallToolResult(List.of(new McpSchema.TextContent(result)), false)));
+    }
+}
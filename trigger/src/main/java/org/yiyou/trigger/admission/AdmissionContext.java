@@ -0,0 +1,44 @@
+package org.yiyou.trigger.admission;
+
+import org.yiyou.trigger.enums.AdmissionPriority;
+
+import java.util.function.Supplier;
+
+/**
+ * 模型调用的排队优先级随请求上下文传递，不按同步/流式推断
+ * <p>
+ * 未标记的调用按交互优先级排队：对话、查询改写、/generate 都有用户在等；
+ * 后台任务用 {@link #call} 在当前线程上标记为批处理，流式调用取组装时线程上的标记。
+ */
+public final class AdmissionContext {
+
+    private static final ThreadLocal<AdmissionPriority> PRIORITY = new ThreadLocal<>();
+
+    private AdmissionContext() {
+    }
+
+    /**
+     * 以指定优先级在当前线程上执行，期间发起的同步模型调用按该优先级排队
+     */
+    public static <T> T call(AdmissionPriority priority, Supplier<T> action) {
+        AdmissionPriority previous = PRIORITY.get();
+        PRIORITY.set(priority);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                PRIORITY.remove();
+            } else {
+                PRIORITY.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 当前线程标记的优先级，未标记时为交互优先级
+     */
+    public static AdmissionPriority current() {
+        AdmissionPriority priority = PRIORITY.get();
+        return priority != null ? priority : AdmissionPriority.INTERACTIVE;
+    }
+}
@@ -0,0 +1,79 @@
+package org.yiyou.trigger.admission;
+
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.yiyou.trigger.enums.AdmissionPriority;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+/**
+ * 经过准入控制的 ChatModel：优先级取自请求上下文（见 {@link AdmissionContext}），未标记的调用按交互优先级排队
+ * 一次调用（含模型内部的工具调用循环）占用一个许可
+ */
+public class AdmissionControlledChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final Supplier<ModelAdmissionController> admissionController;
+    private final int estimatedCompletionTokens;
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+
+    public AdmissionControlledChatModel(ChatModel delegate, Supplier<ModelAdmissionController> admissionController, int estimatedCompletionTokens) {
+        this.delegate = delegate;
+        this.admissionController = admissionController;
+        this.estimatedCompletionTokens = estimatedCompletionTokens;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        ModelAdmissionController.Permit permit = admissionController.get().acquire(AdmissionContext.current(), estimate(prompt)).block();
+        try {
+            ChatResponse response = delegate.call(prompt);
+            recordUsage(permit, response);
+            return response;
+        } finally {
+            permit.release();
+        }
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        // 订阅可能发生在其他线程上，优先级在组装时从当前线程取
+        AdmissionPriority priority = AdmissionContext.current();
+        return Flux.defer(() -> Flux.usingWhen(
+                admissionController.get().acquire(priority, estimate(prompt)),
+                permit -> delegate.stream(prompt).doOnNext(response -> recordUsage(permit, response)),
+                permit -> Mono.fromRunnable(permit::release)));
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    private int estimate(Prompt prompt) {
+        int promptTokens = 0;
+        for (Message message : prompt.getInstructions()) {
+            if (message.getText() != null) {
+                promptTokens += tokenCountEstimator.estimate(message.getText());
+            }
+        }
+        return promptTokens + estimatedCompletionTokens;
+    }
+
+    private static void recordUsage(ModelAdmissionController.Permit permit, ChatResponse response) {
+        if (response != null && response.getMetadata() != null) {
+            Usage usage = response.getMetadata().getUsage();
+            if (usage != null && usage.getTotalTokens() != null) {
+                permit.recordUsage(usage.getTotalTokens());
+            }
+        }
+    }
+}
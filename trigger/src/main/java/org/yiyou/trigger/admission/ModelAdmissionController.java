@@ -0,0 +1,320 @@
+package org.yiyou.trigger.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.yiyou.trigger.config.ModelAdmissionProperties;
+import org.yiyou.trigger.enums.AdmissionPriority;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 模型调用准入控制：限制同时进行的调用数和每分钟 token 数，超出的请求按优先级排队
+ * <p>
+ * 同优先级先到先出；交互请求持续排队时，每放行 batchShareEvery 个请求至少有一个给最早排队的批处理请求，批处理不会饿死。
+ * 队列已满或等待超时立即拒绝并给出重试间隔，避免把突发流量原样打到供应商触发限流。
+ * token 按请求预估先扣，调用结束后按实际用量修正。
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(ModelAdmissionProperties.class)
+public class ModelAdmissionController implements DisposableBean {
+
+    private final ModelAdmissionProperties properties;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<AdmissionPriority, Deque<Waiter>> queues = new EnumMap<>(AdmissionPriority.class);
+    private final ScheduledExecutorService scheduler;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+
+    // 以下字段由 lock 保护
+    private int inFlight;
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+    private boolean dispatchScheduled;
+    // 有批处理请求排队期间连续放行的交互请求数
+    private int grantsSinceBatch;
+
+    public ModelAdmissionController(ModelAdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.tokens = properties.getTokensPerMinute();
+        for (AdmissionPriority priority : AdmissionPriority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("model-admission-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        this.rejectedQueueFull = Counter.builder("chat.admission.rejected").tag("reason", "queue_full").register(meterRegistry);
+        this.rejectedTimeout = Counter.builder("chat.admission.rejected").tag("reason", "timeout").register(meterRegistry);
+        for (AdmissionPriority priority : AdmissionPriority.values()) {
+            Gauge.builder("chat.admission.queue.depth", this, controller -> controller.queueDepth(priority))
+                    .tag("priority", priority.name())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("chat.admission.in.flight", this, ModelAdmissionController::inFlight).register(meterRegistry);
+    }
+
+    /**
+     * 申请一次模型调用的许可，调用结束后必须释放
+     *
+     * @param estimatedTokens 预估的输入加输出 token 数
+     * @throws ModelOverloadedException 队列已满或等待超时（以错误信号发出）
+     */
+    public Mono<Permit> acquire(AdmissionPriority priority, int estimatedTokens) {
+        if (!properties.isEnabled()) {
+            return Mono.fromSupplier(() -> new Permit(0, false));
+        }
+        return Mono.<Permit>create(sink -> enqueue(new Waiter(priority, estimatedTokens, sink)))
+                .timeout(properties.getMaxQueueWait(), Mono.defer(() -> {
+                    rejectedTimeout.increment();
+                    return Mono.error(new ModelOverloadedException("模型调用排队超时", properties.getRetryAfter()));
+                }));
+    }
+
+    /**
+     * 流式接口在返回响应流之前同步检查一次，排队已满时直接抛出，由异常处理返回 429
+     * SSE 响应一旦开始写出状态码已经提交，之后的拒绝只能以流内错误的形式送达
+     *
+     * @throws ModelOverloadedException 排队已满
+     */
+    public void tryAdmit() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (queued() < properties.getMaxQueueSize()) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        rejectedQueueFull.increment();
+        throw new ModelOverloadedException("模型调用排队已满", properties.getRetryAfter());
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    private void enqueue(Waiter waiter) {
+        lock.lock();
+        try {
+            if (queued() >= properties.getMaxQueueSize()) {
+                rejectedQueueFull.increment();
+                waiter.sink().error(new ModelOverloadedException("模型调用排队已满", properties.getRetryAfter()));
+                return;
+            }
+            queues.get(waiter.priority()).add(waiter);
+            waiter.sink().onCancel(() -> cancel(waiter));
+        } finally {
+            lock.unlock();
+        }
+        dispatch();
+    }
+
+    private void cancel(Waiter waiter) {
+        lock.lock();
+        try {
+            queues.get(waiter.priority()).remove(waiter);
+        } finally {
+            lock.unlock();
+        }
+        // 已放行但订阅方取消，许可由这里归还
+        Permit permit = waiter.permit;
+        if (permit != null) {
+            permit.release();
+        }
+    }
+
+    /**
+     * 按优先级和批处理份额放行，token 不足时安排在补足后再放行
+     */
+    private void dispatch() {
+        List<Waiter> granted = new ArrayList<>();
+        lock.lock();
+        try {
+            refill();
+            while (queued() > 0 && inFlight < properties.getMaxInFlight()) {
+                Waiter head = next();
+                int needed = Math.min(head.estimatedTokens(), properties.getTokensPerMinute());
+                if (properties.getTokensPerMinute() > 0 && tokens < needed) {
+                    scheduleDispatch((long) ((needed - tokens) * 60_000_000_000d / properties.getTokensPerMinute()));
+                    break;
+                }
+                queues.get(head.priority()).poll();
+                if (head.priority() == AdmissionPriority.BATCH) {
+                    grantsSinceBatch = 0;
+                } else if (!queues.get(AdmissionPriority.BATCH).isEmpty()) {
+                    grantsSinceBatch++;
+                }
+                inFlight++;
+                boolean limited = properties.getTokensPerMinute() > 0;
+                if (limited) {
+                    tokens -= head.estimatedTokens();
+                }
+                head.permit = new Permit(head.estimatedTokens(), limited);
+                granted.add(head);
+            }
+        } finally {
+            lock.unlock();
+        }
+        // 在锁外通知订阅方，下游逻辑不占用锁
+        granted.forEach(waiter -> waiter.sink().success(waiter.permit));
+    }
+
+    /**
+     * 调用方持有 lock：交互请求优先，批处理请求排队期间已连续放行 batchShareEvery - 1 个交互请求时轮到最早的批处理请求
+     */
+    private Waiter next() {
+        Deque<Waiter> interactive = queues.get(AdmissionPriority.INTERACTIVE);
+        Deque<Waiter> batch = queues.get(AdmissionPriority.BATCH);
+        if (batch.isEmpty()) {
+            return interactive.peek();
+        }
+        int shareEvery = properties.getBatchShareEvery();
+        if (interactive.isEmpty() || (shareEvery > 0 && grantsSinceBatch >= shareEvery - 1)) {
+            return batch.peek();
+        }
+        return interactive.peek();
+    }
+
+    /**
+     * 调用方持有 lock
+     */
+    private int queued() {
+        int queued = 0;
+        for (Deque<Waiter> waiters : queues.values()) {
+            queued += waiters.size();
+        }
+        return queued;
+    }
+
+    private void scheduleDispatch(long delayNanos) {
+        if (dispatchScheduled) {
+            return;
+        }
+        dispatchScheduled = true;
+        scheduler.schedule(() -> {
+            lock.lock();
+            try {
+                dispatchScheduled = false;
+            } finally {
+                lock.unlock();
+            }
+            dispatch();
+        }, Math.max(delayNanos, TimeUnit.MILLISECONDS.toNanos(10)), TimeUnit.NANOSECONDS);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        if (properties.getTokensPerMinute() > 0) {
+            tokens = Math.min(properties.getTokensPerMinute(),
+                    tokens + (now - lastRefillNanos) * properties.getTokensPerMinute() / 60_000_000_000d);
+        }
+        lastRefillNanos = now;
+    }
+
+    private double queueDepth(AdmissionPriority priority) {
+        lock.lock();
+        try {
+            return queues.get(priority).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 一次模型调用的许可，重复释放无副作用
+     */
+    public final class Permit {
+
+        private final int estimatedTokens;
+        private final boolean counted;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile int actualTokens = -1;
+
+        private Permit(int estimatedTokens, boolean counted) {
+            this.estimatedTokens = estimatedTokens;
+            this.counted = counted;
+        }
+
+        /**
+         * 记录实际消耗的 token，释放时用来修正预扣的额度
+         */
+        public void recordUsage(int totalTokens) {
+            if (totalTokens > 0) {
+                actualTokens = totalTokens;
+            }
+        }
+
+        public void release() {
+            if (!properties.isEnabled() || !released.compareAndSet(false, true)) {
+                return;
+            }
+            lock.lock();
+            try {
+                inFlight--;
+                if (counted && actualTokens >= 0) {
+                    tokens = Math.min(properties.getTokensPerMinute(), tokens + estimatedTokens - actualTokens);
+                }
+            } finally {
+                lock.unlock();
+            }
+            dispatch();
+        }
+    }
+
+    private static final class Waiter {
+
+        private final AdmissionPriority priority;
+        private final int estimatedTokens;
+        private final MonoSink<Permit> sink;
+        private volatile Permit permit;
+
+        private Waiter(AdmissionPriority priority, int estimatedTokens, MonoSink<Permit> sink) {
+            this.priority = priority;
+            this.estimatedTokens = estimatedTokens;
+            this.sink = sink;
+        }
+
+        AdmissionPriority priority() {
+            return priority;
+        }
+
+        int estimatedTokens() {
+            return estimatedTokens;
+        }
+
+        MonoSink<Permit> sink() {
+            return sink;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.yiyou.trigger.admission;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * 模型调用排队已满或等待超时
+ */
+@Getter
+public class ModelOverloadedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ModelOverloadedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,17 @@
+package org.yiyou.trigger.advisor;
+
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.yiyou.trigger.enums.ChatFeature;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 预先构建好的对话配置：Advisor 链在启动时创建，请求之间共享
+ */
+public record ChatProfile(String name, Set<ChatFeature> features, List<Advisor> advisors) {
+
+    public boolean has(ChatFeature feature) {
+        return features.contains(feature);
+    }
+}
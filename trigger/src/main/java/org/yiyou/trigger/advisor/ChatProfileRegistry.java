@@ -0,0 +1,171 @@
+package org.yiyou.trigger.advisor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.rag.advisor.RetrievalAugmentationAdvisor;
+import org.springframework.ai.rag.generation.augmentation.ContextualQueryAugmenter;
+import org.springframework.ai.rag.preretrieval.query.transformation.RewriteQueryTransformer;
+import org.springframework.ai.rag.preretrieval.query.transformation.TranslationQueryTransformer;
+import org.springframework.ai.rag.retrieval.join.ConcatenationDocumentJoiner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.yiyou.trigger.cache.RetrievalCache;
+import org.yiyou.trigger.config.ChatProfileProperties;
+import org.yiyou.trigger.config.HybridRetrievalProperties;
+import org.yiyou.trigger.config.QueryTransformationProperties;
+import org.yiyou.trigger.enums.ChatFeature;
+import org.yiyou.trigger.rag.AdaptiveQueryTransformer;
+import org.yiyou.trigger.rag.Bm25Index;
+import org.yiyou.trigger.rag.CachingDocumentRetriever;
+import org.yiyou.trigger.rag.ChunkRepository;
+import org.yiyou.trigger.rag.ContextPacker;
+import org.yiyou.trigger.rag.HybridDocumentRetriever;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 对话配置注册表：按配置把 Advisor 链构建一次，请求时按名称取用
+ * 同一个 Advisor 实例在多个配置之间共享，只有配置用到的能力才会被创建
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties({ChatProfileProperties.class, QueryTransformationProperties.class})
+public class ChatProfileRegistry {
+
+    private static final String REWRITE_AND_TRANSLATE_PROMPT = """
+            给定用户查询，将其改写为更适合在{target}中检索的查询。
+            去掉无关信息，保持简洁、具体；无论原始查询是什么语言，改写结果都必须是中文。
+            只输出改写后的查询。
+
+            原始查询：
+            {query}
+
+            改写后的查询：
+            """;
+
+    private final ChatProfileProperties properties;
+    private final Map<String, ChatProfile> profiles = new HashMap<>();
+
+    public ChatProfileRegistry(ChatProfileProperties properties,
+                               ChatClient chatClient,
+                               ChatClient.Builder chatClientBuilder,
+                               ChatMemory chatMemory,
+                               PromptTemplate promptTemplate,
+                               RetrievalCache retrievalCache,
+                               Bm25Index bm25Index,
+                               ChunkRepository chunkRepository,
+                               HybridRetrievalProperties hybridRetrievalProperties,
+                               QueryTransformationProperties queryTransformationProperties,
+                               ContextPacker contextPacker,
+                               SemanticCacheAdvisor semanticCacheAdvisor,
+                               Scheduler blockingScheduler) {
+        this.properties = properties;
+
+        Map<ChatFeature, Advisor> advisors = new EnumMap<>(ChatFeature.class);
+        properties.getFeatures().values().stream().flatMap(List::stream).distinct().forEach(feature -> {
+            switch (feature) {
+                case LOGGER -> advisors.put(feature, SimpleLoggerAdvisor.builder().build());
+                case TIME -> advisors.put(feature, TimeAdvisor.builder().build());
+                case MEMORY -> advisors.put(feature, MessageChatMemoryAdvisor.builder(chatMemory).scheduler(blockingScheduler).build());
+                case SEMANTIC_CACHE -> advisors.put(feature, semanticCacheAdvisor);
+                case RAG -> advisors.put(feature, retrievalAugmentationAdvisor(chatClient, chatClientBuilder, promptTemplate,
+                        retrievalCache, bm25Index, chunkRepository, hybridRetrievalProperties, queryTransformationProperties, contextPacker, blockingScheduler));
+                case TOOLS -> {
+                    // 工具不是 Advisor，由调用方按配置挂载
+                }
+            }
+        });
+
+        properties.getFeatures().forEach((name, features) -> {
+            EnumSet<ChatFeature> featureSet = features.isEmpty() ? EnumSet.noneOf(ChatFeature.class) : EnumSet.copyOf(features);
+            List<Advisor> chain = new ArrayList<>();
+            if (featureSet.contains(ChatFeature.SEMANTIC_CACHE) && featureSet.contains(ChatFeature.TOOLS)) {
+                // 挂载工具的请求每次都会跳过缓存，不放入链中，省去每个请求的判断
+                log.warn("对话配置 {} 同时启用了 SEMANTIC_CACHE 和 TOOLS，语义缓存不生效", name);
+            }
+            featureSet.forEach(feature -> {
+                if (feature == ChatFeature.SEMANTIC_CACHE && featureSet.contains(ChatFeature.TOOLS)) {
+                    return;
+                }
+                if (feature == ChatFeature.SEMANTIC_CACHE && featureSet.contains(ChatFeature.MEMORY)) {
+                    // 回答依赖对话记忆，缓存只能在同一会话内复用
+                    chain.add(semanticCacheAdvisor.conversationScoped());
+                } else if (advisors.containsKey(feature)) {
+                    chain.add(advisors.get(feature));
+                }
+            });
+            profiles.put(name, new ChatProfile(name, featureSet, List.copyOf(chain)));
+            log.info("对话配置 {} 已构建 {}", name, featureSet);
+        });
+    }
+
+    /**
+     * @param name 为空时返回默认配置
+     * @throws ResponseStatusException 配置不存在
+     */
+    public ChatProfile get(String name) {
+        ChatProfile profile = profiles.get(name == null || name.isBlank() ? properties.getDefaultName() : name);
+        if (profile == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "未知的对话配置 " + name);
+        }
+        return profile;
+    }
+
+    private static Advisor retrievalAugmentationAdvisor(ChatClient chatClient,
+                                                        ChatClient.Builder chatClientBuilder,
+                                                        PromptTemplate promptTemplate,
+                                                        RetrievalCache retrievalCache,
+                                                        Bm25Index bm25Index,
+                                                        ChunkRepository chunkRepository,
+                                                        HybridRetrievalProperties hybridRetrievalProperties,
+                                                        QueryTransformationProperties queryTransformationProperties,
+                                                        ContextPacker contextPacker,
+                                                        Scheduler blockingScheduler) {
+        return RetrievalAugmentationAdvisor.builder()
+                // 按需重写、翻译查询，每个查询最多一次模型调用
+                .queryTransformers(new AdaptiveQueryTransformer(
+                        // 重写查询
+                        RewriteQueryTransformer.builder()
+                                .chatClientBuilder(chatClient.mutate())
+                                .build(),
+                        // 翻译查询
+                        TranslationQueryTransformer.builder()
+                                .chatClientBuilder(chatClientBuilder)
+                                .targetLanguage("chinese")
+                                .build(),
+                        // 重写并翻译查询
+                        RewriteQueryTransformer.builder()
+                                .chatClientBuilder(chatClient.mutate())
+                                .promptTemplate(new PromptTemplate(REWRITE_AND_TRANSLATE_PROMPT))
+                                .build(),
+                        queryTransformationProperties))
+                // 文档检索
+                .documentRetriever(new HybridDocumentRetriever(new CachingDocumentRetriever(retrievalCache, 0.4, 20), bm25Index, chunkRepository, 20, hybridRetrievalProperties.getRrfK()))
+                // 文档连接
+                .documentJoiner(new ConcatenationDocumentJoiner())
+                // 去重、MMR 多样性挑选、按 token 预算装填
+                .documentPostProcessors(contextPacker)
+                // 查询增强
+                .queryAugmenter(ContextualQueryAugmenter.builder()
+                        // 允许无上下文
+                        .allowEmptyContext(true)
+                        .promptTemplate(promptTemplate)
+                        .build())
+                // 查询改写和检索是阻塞调用
+                .scheduler(blockingScheduler)
+                .build();
+    }
+}
@@ -0,0 +1,191 @@
+package org.yiyou.trigger.advisor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.ai.chat.client.ChatClientMessageAggregator;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+import org.yiyou.trigger.cache.SemanticAnswerCache;
+import org.yiyou.trigger.config.SemanticCacheProperties;
+import org.yiyou.trigger.constant.ChatContextConstant;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 语义回答缓存：问题向量与已回答问题足够相似时直接回放缓存的回答，不再调用模型
+ * 排在记忆 Advisor 之后、RAG 之前，命中时仍会写入对话记忆，但跳过检索和生成
+ * <p>
+ * 回答依赖对话记忆时不能跨会话复用，带记忆的对话配置使用 {@link #conversationScoped()} 得到的实例；
+ * 请求挂载了工具时回答可能来自实时数据（天气、当前时间），整个请求不走缓存：
+ * 配置了 TOOLS 的对话配置不会把本 Advisor 放进链中，调用方临时挂载的工具在向量化之前由 {@link #bypass} 排除。
+ */
+@Slf4j
+@Component
+public class SemanticCacheAdvisor implements CallAdvisor, StreamAdvisor {
+
+    private static final String CACHE_HIT_METADATA = "semantic_cache_hit";
+
+    private final EmbeddingModel embeddingModel;
+    private final SemanticAnswerCache semanticAnswerCache;
+    private final SemanticCacheProperties properties;
+    private final Scheduler blockingScheduler;
+    private final boolean scopeByConversation;
+
+    @Autowired
+    public SemanticCacheAdvisor(EmbeddingModel embeddingModel, SemanticAnswerCache semanticAnswerCache, SemanticCacheProperties properties,
+                                Scheduler blockingScheduler) {
+        this(embeddingModel, semanticAnswerCache, properties, blockingScheduler, properties.isScopeByConversation());
+    }
+
+    private SemanticCacheAdvisor(EmbeddingModel embeddingModel, SemanticAnswerCache semanticAnswerCache, SemanticCacheProperties properties,
+                                 Scheduler blockingScheduler, boolean scopeByConversation) {
+        this.embeddingModel = embeddingModel;
+        this.semanticAnswerCache = semanticAnswerCache;
+        this.properties = properties;
+        this.blockingScheduler = blockingScheduler;
+        this.scopeByConversation = scopeByConversation;
+    }
+
+    /**
+     * 共享同一份缓存、但只在同一会话内复用回答的实例
+     */
+    public SemanticCacheAdvisor conversationScoped() {
+        return scopeByConversation ? this
+                : new SemanticCacheAdvisor(embeddingModel, semanticAnswerCache, properties, blockingScheduler, true);
+    }
+
+    @Override
+    public String getName() {
+        return this.getClass().getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        return Advisor.DEFAULT_CHAT_MEMORY_PRECEDENCE_ORDER + 100;
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest chatClientRequest, CallAdvisorChain callAdvisorChain) {
+        if (bypass(chatClientRequest)) {
+            return callAdvisorChain.nextCall(chatClientRequest);
+        }
+        Lookup lookup = lookup(chatClientRequest);
+        if (lookup.answer().isPresent()) {
+            return ChatClientResponse.builder()
+                    .chatResponse(chatResponse(lookup.answer().get(), true))
+                    .context(chatClientRequest.context())
+                    .build();
+        }
+        ChatClientResponse chatClientResponse = callAdvisorChain.nextCall(chatClientRequest);
+        store(lookup, chatClientResponse);
+        return chatClientResponse;
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest chatClientRequest, StreamAdvisorChain streamAdvisorChain) {
+        if (bypass(chatClientRequest)) {
+            return streamAdvisorChain.nextStream(chatClientRequest);
+        }
+        // 向量化是阻塞调用，放到阻塞调用专用的 Scheduler 上执行
+        return Mono.fromCallable(() -> lookup(chatClientRequest))
+                .subscribeOn(blockingScheduler)
+                .flatMapMany(lookup -> lookup.answer()
+                        .map(answer -> replay(answer, chatClientRequest.context()))
+                        .orElseGet(() -> new ChatClientMessageAggregator().aggregateChatClientResponse(
+                                streamAdvisorChain.nextStream(chatClientRequest),
+                                chatClientResponse -> store(lookup, chatClientResponse))));
+    }
+
+    /**
+     * 在向量化之前判断，跳过时不产生 embedding 调用
+     */
+    private boolean bypass(ChatClientRequest chatClientRequest) {
+        return !properties.isEnabled()
+                || Boolean.TRUE.equals(chatClientRequest.context().get(ChatContextConstant.SEMANTIC_CACHE_BYPASS))
+                || chatClientRequest.prompt().getUserMessage() == null
+                || StringUtils.isBlank(chatClientRequest.prompt().getUserMessage().getText())
+                || hasTools(chatClientRequest);
+    }
+
+    /**
+     * 工具在模型内部执行，最终响应里看不到工具调用，只能按请求是否挂载了工具判断
+     */
+    private static boolean hasTools(ChatClientRequest chatClientRequest) {
+        return chatClientRequest.prompt().getOptions() instanceof ToolCallingChatOptions options
+                && (!CollectionUtils.isEmpty(options.getToolCallbacks()) || !CollectionUtils.isEmpty(options.getToolNames()));
+    }
+
+    private Lookup lookup(ChatClientRequest chatClientRequest) {
+        SemanticAnswerCache.Scope scope = scope(chatClientRequest.context());
+        float[] vector = embeddingModel.embed(chatClientRequest.prompt().getUserMessage().getText());
+        return new Lookup(scope, vector, semanticAnswerCache.lookup(scope, vector));
+    }
+
+    private void store(Lookup lookup, ChatClientResponse chatClientResponse) {
+        ChatResponse chatResponse = chatClientResponse.chatResponse();
+        if (chatResponse == null || chatResponse.getResult() == null) {
+            return;
+        }
+        String answer = chatResponse.getResult().getOutput().getText();
+        if (StringUtils.isNotBlank(answer)) {
+            semanticAnswerCache.put(lookup.scope(), lookup.vector(), answer);
+        }
+    }
+
+    private SemanticAnswerCache.Scope scope(Map<String, Object> context) {
+        String ragTag = String.valueOf(context.getOrDefault(ChatContextConstant.RAG_TAG, ""));
+        String conversationId = scopeByConversation ? String.valueOf(context.getOrDefault(ChatMemory.CONVERSATION_ID, "")) : null;
+        return new SemanticAnswerCache.Scope(ragTag, conversationId);
+    }
+
+    /**
+     * 把缓存的回答切成小段，模拟模型的流式输出
+     */
+    private Flux<ChatClientResponse> replay(String answer, Map<String, Object> context) {
+        List<String> pieces = new ArrayList<>();
+        int step = Math.max(1, properties.getReplayChunkChars());
+        for (int start = 0; start < answer.length(); start += step) {
+            pieces.add(answer.substring(start, Math.min(answer.length(), start + step)));
+        }
+        return Flux.range(0, pieces.size())
+                .map(i -> ChatClientResponse.builder()
+                        .chatResponse(chatResponse(pieces.get(i), i == pieces.size() - 1))
+                        .context(context)
+                        .build());
+    }
+
+    private static ChatResponse chatResponse(String text, boolean last) {
+        ChatGenerationMetadata generationMetadata = last
+                ? ChatGenerationMetadata.builder().finishReason("STOP").build()
+                : ChatGenerationMetadata.NULL;
+        return ChatResponse.builder()
+                .generations(List.of(new Generation(new AssistantMessage(text), generationMetadata)))
+                .metadata(ChatResponseMetadata.builder().keyValue(CACHE_HIT_METADATA, true).build())
+                .build();
+    }
+
+    private record Lookup(SemanticAnswerCache.Scope scope, float[] vector, Optional<String> answer) {
+    }
+}
@@ -0,0 +1,79 @@
+package org.yiyou.trigger.cache;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.embedding.EmbeddingResponseMetadata;
+import org.yiyou.trigger.rag.ContentHash;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 带缓存的 EmbeddingModel，入库和检索都经过这里，只有缓存未命中的文本才会请求模型
+ */
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+
+    /**
+     * 延迟获取缓存，避免包装 EmbeddingModel 时提前初始化 Redis 等依赖
+     */
+    private final Supplier<EmbeddingCache> embeddingCache;
+
+    public CachingEmbeddingModel(EmbeddingModel delegate, Supplier<EmbeddingCache> embeddingCache) {
+        this.delegate = delegate;
+        this.embeddingCache = embeddingCache;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> texts = request.getInstructions();
+        List<String> hashes = texts.stream().map(ContentHash::sha256).toList();
+        Map<String, float[]> vectors = new HashMap<>(embeddingCache.get().getAll(hashes));
+
+        // 未命中的文本去重后一次请求模型
+        Map<String, String> missing = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            if (!vectors.containsKey(hashes.get(i))) {
+                missing.putIfAbsent(hashes.get(i), texts.get(i));
+            }
+        }
+
+        EmbeddingResponseMetadata metadata = new EmbeddingResponseMetadata();
+        if (!missing.isEmpty()) {
+            EmbeddingResponse response = delegate.call(new EmbeddingRequest(new ArrayList<>(missing.values()), request.getOptions()));
+            Map<String, float[]> computed = new HashMap<>();
+            List<String> missingHashes = new ArrayList<>(missing.keySet());
+            for (int i = 0; i < missingHashes.size(); i++) {
+                computed.put(missingHashes.get(i), response.getResults().get(i).getOutput());
+            }
+            embeddingCache.get().putAll(computed);
+            vectors.putAll(computed);
+            metadata = response.getMetadata();
+        }
+
+        List<Embedding> embeddings = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            embeddings.add(new Embedding(vectors.get(hashes.get(i)), i));
+        }
+        return new EmbeddingResponse(embeddings, metadata);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getFormattedContent(MetadataMode.EMBED));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
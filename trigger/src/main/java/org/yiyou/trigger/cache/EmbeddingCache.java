@@ -0,0 +1,147 @@
+package org.yiyou.trigger.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.yiyou.trigger.config.EmbeddingCacheProperties;
+import org.yiyou.trigger.constant.TriggerRedisConstant;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按内容哈希缓存向量：进程内 Caffeine 为一级，Redis 为二级，多个实例和多次上传共享
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(EmbeddingCacheProperties.class)
+public class EmbeddingCache {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final EmbeddingCacheProperties properties;
+    private final Cache<String, float[]> localCache;
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+
+    public EmbeddingCache(StringRedisTemplate stringRedisTemplate, EmbeddingCacheProperties properties, MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = properties;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaximumSize())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "embedding");
+        this.localHits = counter(meterRegistry, "local_hit");
+        this.redisHits = counter(meterRegistry, "redis_hit");
+        this.misses = counter(meterRegistry, "miss");
+        Gauge.builder("rag.embedding.cache.hit.ratio", this, EmbeddingCache::hitRatio)
+                .description("向量缓存命中率（本地 + Redis）")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 批量查询，未命中的哈希不出现在返回结果中
+     */
+    public Map<String, float[]> getAll(Collection<String> hashes) {
+        Map<String, float[]> found = new HashMap<>(localCache.getAllPresent(hashes));
+        localHits.increment(found.size());
+
+        List<String> remaining = hashes.stream().filter(hash -> !found.containsKey(hash)).distinct().toList();
+        if (!remaining.isEmpty()) {
+            List<String> values = multiGet(remaining);
+            for (int i = 0; i < remaining.size(); i++) {
+                String value = values.get(i);
+                if (value != null) {
+                    float[] vector = decode(value);
+                    found.put(remaining.get(i), vector);
+                    localCache.put(remaining.get(i), vector);
+                    redisHits.increment();
+                } else {
+                    misses.increment();
+                }
+            }
+        }
+        return found;
+    }
+
+    public void putAll(Map<String, float[]> vectors) {
+        if (vectors.isEmpty()) {
+            return;
+        }
+        localCache.putAll(vectors);
+        try {
+            stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    vectors.forEach((hash, vector) -> operations.opsForValue().set(redisKey(hash), encode(vector), properties.getRedisTtl()));
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            log.warn("向量缓存写入 Redis 失败，仅保留本地缓存", e);
+        }
+    }
+
+    private List<String> multiGet(List<String> hashes) {
+        List<String> values = null;
+        try {
+            values = stringRedisTemplate.opsForValue().multiGet(hashes.stream().map(this::redisKey).toList());
+        } catch (Exception e) {
+            log.warn("向量缓存读取 Redis 失败，按未命中处理", e);
+        }
+        if (values == null) {
+            values = new ArrayList<>();
+            for (int i = 0; i < hashes.size(); i++) {
+                values.add(null);
+            }
+        }
+        return values;
+    }
+
+    private String redisKey(String hash) {
+        return TriggerRedisConstant.EMBEDDING_CACHE_KEY_PREFIX + properties.getNamespace() + ":" + hash;
+    }
+
+    private double hitRatio() {
+        double hits = localHits.count() + redisHits.count();
+        double total = hits + misses.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("rag.embedding.cache.requests")
+                .description("向量缓存查询次数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static String encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES);
+        buffer.asFloatBuffer().put(vector);
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    private static float[] decode(String value) {
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(value));
+        float[] vector = new float[buffer.remaining() / Float.BYTES];
+        buffer.asFloatBuffer().get(vector);
+        return vector;
+    }
+}
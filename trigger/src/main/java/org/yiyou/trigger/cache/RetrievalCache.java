@@ -0,0 +1,109 @@
+package org.yiyou.trigger.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.yiyou.trigger.config.RetrievalCacheProperties;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 相似度检索结果缓存，命中时既省掉查询向量化，也省掉 HNSW 扫描
+ * 入库任务结束后按标签失效
+ * <p>
+ * 未命中时在调用线程上检索再写回，不在 Caffeine 的 compute 里做阻塞调用；每个标签有一个代数，
+ * 失效时先加代数再清缓存，检索前后代数变了的结果写回后立即移除，失效前开始的检索不会把旧结果留到 TTL。
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(RetrievalCacheProperties.class)
+public class RetrievalCache {
+
+    private final VectorStore vectorStore;
+    private final RetrievalCacheProperties properties;
+    private final Cache<Key, List<Document>> cache;
+    private final Timer searchTimer;
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    // 不限定标签的检索可能命中任意标签，任何标签失效都要让它失效
+    private final AtomicLong untaggedGeneration = new AtomicLong();
+
+    public RetrievalCache(VectorStore vectorStore, RetrievalCacheProperties properties, MeterRegistry meterRegistry) {
+        this.vectorStore = vectorStore;
+        this.properties = properties;
+        this.searchTimer = Timer.builder("rag.retrieval").tag("source", "vector").register(meterRegistry);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "retrieval");
+    }
+
+    /**
+     * @param ragTag 请求限定的知识库标签，用于按标签失效，可为 null
+     */
+    public List<Document> search(SearchRequest request, String ragTag) {
+        if (!properties.isEnabled()) {
+            return similaritySearch(request);
+        }
+        Key key = new Key(normalize(request.getQuery()), request.getFilterExpression(), request.getTopK(), request.getSimilarityThreshold(), ragTag);
+        List<Document> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        AtomicLong generation = generation(ragTag);
+        long before = generation.get();
+        List<Document> documents = List.copyOf(Objects.requireNonNullElse(similaritySearch(request), List.of()));
+        cache.put(key, documents);
+        // 先写后查：失效发生在写入之前会被这里发现，发生在写入之后由 invalidate 的 removeIf 清掉
+        if (generation.get() != before) {
+            cache.asMap().remove(key, documents);
+        }
+        return documents;
+    }
+
+    /**
+     * 只统计实际打到向量库的检索，缓存命中情况见 cache.* 指标
+     */
+    private List<Document> similaritySearch(SearchRequest request) {
+        return searchTimer.record(() -> vectorStore.similaritySearch(request));
+    }
+
+    /**
+     * 标签下的知识发生变化后调用，同时失效不区分标签的检索结果
+     */
+    public void invalidate(String ragTag) {
+        generation(ragTag).incrementAndGet();
+        untaggedGeneration.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.ragTag() == null || key.ragTag().equals(ragTag));
+        log.info("检索缓存已失效 {}", ragTag);
+    }
+
+    private AtomicLong generation(String ragTag) {
+        return ragTag == null ? untaggedGeneration : generations.computeIfAbsent(ragTag, tag -> new AtomicLong());
+    }
+
+    /**
+     * 去掉首尾空白、合并连续空白并统一小写，让只差空格大小写的问题命中同一条缓存
+     */
+    static String normalize(String query) {
+        return query == null ? "" : query.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private record Key(String query, Filter.Expression filterExpression, int topK, double similarityThreshold, String ragTag) {
+    }
+}
@@ -0,0 +1,139 @@
+package org.yiyou.trigger.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.yiyou.trigger.config.SemanticCacheProperties;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 问题向量 -> 回答的缓存，按作用域（标签、会话）隔离，查询时在作用域内找最相似的问题
+ * 知识库内容变化后按标签失效，避免继续返回基于旧文档的回答
+ * <p>
+ * 条目的容量和过期仍由一个 Caffeine 缓存统一管理，另按作用域维护条目 ID 的索引，查询只扫描本作用域的条目。
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(SemanticCacheProperties.class)
+public class SemanticAnswerCache {
+
+    private final SemanticCacheProperties properties;
+    private final Cache<UUID, Entry> cache;
+    private final Map<Scope, Set<UUID>> scopes = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    public SemanticAnswerCache(SemanticCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .removalListener((UUID id, Entry entry, RemovalCause cause) -> {
+                    if (id != null && entry != null) {
+                        unindex(entry.scope(), id);
+                    }
+                })
+                .build();
+        this.hits = counter(meterRegistry, "hit");
+        this.misses = counter(meterRegistry, "miss");
+    }
+
+    public Optional<String> lookup(Scope scope, float[] vector) {
+        float[] normalized = normalize(vector);
+        Entry best = null;
+        double bestScore = properties.getSimilarityThreshold();
+        for (UUID id : scopes.getOrDefault(scope, Set.of())) {
+            Entry entry = cache.getIfPresent(id);
+            if (entry == null) {
+                continue;
+            }
+            double score = dot(entry.vector(), normalized);
+            if (score >= bestScore) {
+                best = entry;
+                bestScore = score;
+            }
+        }
+        (best == null ? misses : hits).increment();
+        return Optional.ofNullable(best).map(Entry::answer);
+    }
+
+    public void put(Scope scope, float[] vector, String answer) {
+        UUID id = UUID.randomUUID();
+        // 先建索引再写入，写入后被淘汰时监听器能找到并移除索引
+        scopes.compute(scope, (key, ids) -> {
+            Set<UUID> bucket = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            bucket.add(id);
+            return bucket;
+        });
+        cache.put(id, new Entry(scope, normalize(vector), answer));
+    }
+
+    /**
+     * 使某个标签下的回答失效；未指定标签的回答可能检索过任意标签，一并失效
+     */
+    public void invalidate(String ragTag) {
+        for (Scope scope : scopes.keySet()) {
+            if (StringUtils.isBlank(scope.ragTag()) || scope.ragTag().equals(ragTag)) {
+                Set<UUID> ids = scopes.remove(scope);
+                if (ids != null) {
+                    cache.invalidateAll(ids);
+                }
+            }
+        }
+        log.info("语义回答缓存已失效 {}", ragTag);
+    }
+
+    private void unindex(Scope scope, UUID id) {
+        scopes.computeIfPresent(scope, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = Math.sqrt(dot(vector, vector));
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = norm == 0 ? 0 : (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        if (a.length != b.length) {
+            return 0;
+        }
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("chat.semantic.cache.requests")
+                .description("语义回答缓存查询次数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 缓存作用域，conversationId 为 null 时同一标签下的会话共享
+     */
+    public record Scope(String ragTag, String conversationId) {
+    }
+
+    private record Entry(Scope scope, float[] vector, String answer) {
+    }
+}
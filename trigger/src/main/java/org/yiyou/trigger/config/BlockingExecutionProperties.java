@@ -0,0 +1,32 @@
+package org.yiyou.trigger.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 阻塞调用执行配置属性
+ * 开启虚拟线程（spring.threads.virtual.enabled，需要 Java 21）时不限线程数，以下属性只作用于有界弹性线程池
+ */
+@Data
+@ConfigurationProperties(prefix = BlockingExecutionProperties.PREFIX)
+public class BlockingExecutionProperties {
+
+    public static final String PREFIX = "framework.execution.blocking";
+
+    /**
+     * 线程数上限，默认 CPU 核数的 10 倍
+     */
+    private int threadCap = Runtime.getRuntime().availableProcessors() * 10;
+
+    /**
+     * 线程全忙时排队的任务数上限，超出后拒绝
+     */
+    private int queuedTaskCap = 100_000;
+
+    /**
+     * 空闲线程的回收时间
+     */
+    private Duration ttl = Duration.ofSeconds(60);
+}
@@ -0,0 +1,95 @@
+package org.yiyou.trigger.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 对话记忆配置属性
+ */
+@Data
+@ConfigurationProperties(prefix = ChatMemoryProperties.PREFIX)
+public class ChatMemoryProperties {
+
+    public static final String PREFIX = "framework.chat.memory";
+
+    /**
+     * 每个会话保留的消息条数，冷加载时也只读最近这些条
+     */
+    private int maxMessages = 200;
+
+    /**
+     * 是否启用分层存储：内存热缓存 + 异步批量追加写库，关闭时直接读写数据库
+     */
+    private boolean tiered = true;
+
+    /**
+     * 热窗口是否放在 Redis 由多个实例共享；关闭时只在本进程缓存，必须单实例部署或按会话粘性路由
+     */
+    private boolean shared = true;
+
+    /**
+     * 热缓存最多保留的会话数
+     */
+    private long maximumConversations = 10000;
+
+    /**
+     * 会话空闲多久后移出热缓存
+     */
+    private Duration idleTtl = Duration.ofMinutes(30);
+
+    /**
+     * 待写消息刷库间隔
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     * 每批写库的最大消息数
+     */
+    private int batchSize = 500;
+
+    /**
+     * 待写消息队列上限，队满时由保存消息的请求线程同步刷库
+     */
+    private int maxPending = 10000;
+
+    /**
+     * 长对话滚动摘要
+     */
+    private Compaction compaction = new Compaction();
+
+    @Data
+    public static class Compaction {
+
+        /**
+         * 是否启用，启用后旧消息折叠为摘要，每轮提示词的记忆部分有上限
+         */
+        private boolean enabled = false;
+
+        /**
+         * 会话记忆超过该 token 数时在后台触发摘要
+         */
+        private int triggerTokens = 6000;
+
+        /**
+         * 摘要时原样保留的最近消息 token 数
+         */
+        private int recentTokens = 2000;
+
+        /**
+         * 每轮提示词中记忆部分的 token 上限，摘要未完成时也不会超出
+         */
+        private int maxPromptTokens = 4000;
+
+        /**
+         * 同时进行的摘要任务数
+         */
+        private int parallelism = 2;
+
+        /**
+         * 等待摘要的会话数，超出时本轮跳过，下一轮再触发
+         */
+        private int queueCapacity = 100;
+    }
+}
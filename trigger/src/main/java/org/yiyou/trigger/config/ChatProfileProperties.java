@@ -0,0 +1,30 @@
+package org.yiyou.trigger.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.yiyou.trigger.enums.ChatFeature;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 对话配置属性，每个配置是一组 ChatFeature，启动时构建为固定的 Advisor 链
+ */
+@Data
+@ConfigurationProperties(prefix = ChatProfileProperties.PREFIX)
+public class ChatProfileProperties {
+
+    public static final String PREFIX = "framework.chat.profile";
+
+    /**
+     * 请求未指定配置时使用的配置名
+     */
+    private String defaultName = "default";
+
+    /**
+     * 配置名 -> 启用的能力
+     */
+    private Map<String, List<ChatFeature>> features = new LinkedHashMap<>(Map.of(
+            "default", List.of(ChatFeature.TIME, ChatFeature.MEMORY, ChatFeature.TOOLS)));
+}
@@ -0,0 +1,26 @@
+package org.yiyou.trigger.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 精简流式输出配置属性
+ */
+@Data
+@ConfigurationProperties(prefix = ChatStreamProperties.PREFIX)
+public class ChatStreamProperties {
+
+    public static final String PREFIX = "framework.chat.stream";
+
+    /**
+     * 合并 token 的时间窗口
+     */
+    private Duration window = Duration.ofMillis(50);
+
+    /**
+     * 每个增量事件最多合并的模型输出片段数，先到先发
+     */
+    private int maxChunks = 32;
+}
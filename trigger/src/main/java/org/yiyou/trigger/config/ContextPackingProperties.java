@@ -0,0 +1,29 @@
+package org.yiyou.trigger.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 检索结果装填上下文的配置属性
+ */
+@Data
+@ConfigurationProperties(prefix = ContextPackingProperties.PREFIX)
+public class ContextPackingProperties {
+
+    public static final String PREFIX = "framework.rag.context-packing";
+
+    /**
+     * 装入提示词的文档总 token 上限
+     */
+    private int tokenBudget = 2000;
+
+    /**
+     * 与已选文档的字符二元组 Jaccard 相似度不低于该值时视为近似重复
+     */
+    private double duplicateThreshold = 0.85;
+
+    /**
+     * MMR 中相关性的权重，越小越偏向多样性
+     */
+    private double mmrLambda = 0.7;
+}
@@ -0,0 +1,36 @@
+package org.yiyou.trigger.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 向量缓存配置属性
+ */
+@Data
+@ConfigurationProperties(prefix = EmbeddingCacheProperties.PREFIX)
+public class EmbeddingCacheProperties {
+
+    public static final String PREFIX = "framework.rag.embedding-cache";
+
+    /**
+     * 是否在 EmbeddingModel 前启用缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存命名空间，更换向量模型时必须随之修改，避免读到旧模型的向量
+     */
+    private String namespace = "default";
+
+    /**
+     * 进程内缓存的最大条目数
+     */
+    private long localMaximumSize = 5000;
+
+    /**
+     * Redis 中向量的过期时间
+     */
+    private Duration redisTtl = Duration.ofDays(30);
+}
@@ -0,0 +1,44 @@
+package org.yiyou.trigger.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 关键词 + 向量混合检索配置属性
+ */
+@Data
+@ConfigurationProperties(prefix = HybridRetrievalProperties.PREFIX)
+public class HybridRetrievalProperties {
+
+    public static final String PREFIX = "framework.rag.hybrid";
+
+    /**
+     * 关闭后只做向量检索
+     */
+    private boolean enabled = true;
+
+    /**
+     * 倒数排名融合常数，越大排名靠后的结果权重越接近靠前的结果
+     */
+    private int rrfK = 60;
+
+    /**
+     * BM25 词频饱和参数
+     */
+    private double k1 = 1.2;
+
+    /**
+     * BM25 文档长度归一化参数
+     */
+    private double b = 0.75;
+
+    /**
+     * 启动时是否从向量表重建倒排索引
+     */
+    private boolean bootstrapEnabled = true;
+
+    /**
+     * 是否通过 Redis 频道在多个实例之间同步倒排索引的写入和删除
+     */
+    private boolean syncEnabled = true;
+}
@@ -0,0 +1,31 @@
+package org.yiyou.trigger.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * MCP 工具目录缓存配置属性
+ */
+@Data
+@ConfigurationProperties(prefix = McpToolCatalogProperties.PREFIX)
+public class McpToolCatalogProperties {
+
+    public static final String PREFIX = "framework.mcp.tool-catalog";
+
+    /**
+     * 工具列表的有效期，到期后在后台刷新
+     */
+    private Duration ttl = Duration.ofMinutes(10);
+
+    /**
+     * 单个 MCP 服务列出工具的超时时间，超时继续使用旧列表
+     */
+    private Duration timeout = Duration.ofSeconds(3);
+
+    /**
+     * 列出工具失败后的重试间隔
+     */
+    private Duration retryInterval = Duration.ofSeconds(30);
+}
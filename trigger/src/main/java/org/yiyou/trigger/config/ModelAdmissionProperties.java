@@ -0,0 +1,56 @@
+package org.yiyou.trigger.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 模型调用准入控制配置属性
+ */
+@Data
+@ConfigurationProperties(prefix = ModelAdmissionProperties.PREFIX)
+public class ModelAdmissionProperties {
+
+    public static final String PREFIX = "framework.chat.admission";
+
+    /**
+     * 是否启用
+     */
+    private boolean enabled = true;
+
+    /**
+     * 同时进行的模型调用数上限
+     */
+    private int maxInFlight = 8;
+
+    /**
+     * 每分钟 token 上限，0 表示不限
+     */
+    private int tokensPerMinute = 0;
+
+    /**
+     * 预估 token 时为每次调用预留的输出 token 数，调用结束后按实际用量修正
+     */
+    private int estimatedCompletionTokens = 500;
+
+    /**
+     * 排队请求数上限，超出时立即拒绝
+     */
+    private int maxQueueSize = 100;
+
+    /**
+     * 交互与批处理请求同时排队时，每放行这么多个请求至少有一个给最早排队的批处理请求，0 表示严格按优先级
+     */
+    private int batchShareEvery = 4;
+
+    /**
+     * 排队最长等待时间，超时后拒绝
+     */
+    private Duration maxQueueWait = Duration.ofSeconds(10);
+
+    /**
+     * 拒绝时建议客户端的重试间隔
+     */
+    private Duration retryAfter = Duration.ofSeconds(5);
+}
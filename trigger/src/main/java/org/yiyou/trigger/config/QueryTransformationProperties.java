@@ -0,0 +1,36 @@
+package org.yiyou.trigger.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 检索前查询改写、翻译配置属性
+ */
+@Data
+@ConfigurationProperties(prefix = QueryTransformationProperties.PREFIX)
+public class QueryTransformationProperties {
+
+    public static final String PREFIX = "framework.rag.query-transformation";
+
+    /**
+     * 分词后不超过该词数的查询视为关键词查询，不做改写
+     */
+    private int shortQueryMaxTokens = 4;
+
+    /**
+     * 汉字占文字字符的比例不低于该值时视为中文，不做翻译
+     */
+    private double chineseRatio = 0.5;
+
+    /**
+     * 改写结果缓存条目数
+     */
+    private long cacheMaximumSize = 1000;
+
+    /**
+     * 改写结果缓存过期时间
+     */
+    private Duration cacheTtl = Duration.ofHours(1);
+}
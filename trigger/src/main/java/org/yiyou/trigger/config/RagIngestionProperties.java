@@ -0,0 +1,77 @@
+package org.yiyou.trigger.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * 知识库入库配置属性
+ */
+@Data
+@ConfigurationProperties(prefix = RagIngestionProperties.PREFIX)
+public class RagIngestionProperties {
+
+    public static final String PREFIX = "framework.rag.ingestion";
+
+    /**
+     * 每个切片的目标 token 数
+     */
+    private int chunkSize = 512;
+
+    /**
+     * 相邻切片之间重叠的 token 数
+     */
+    private int chunkOverlap = 64;
+
+    /**
+     * 小于该字符数的切片直接丢弃，不做向量化
+     */
+    private int minChunkChars = 10;
+
+    /**
+     * 每个切片写入元数据的关键词上限
+     */
+    private int maxKeywords = 32;
+
+    /**
+     * 解析时按段落、页面把正文分段交给切片，每段达到该字符数后在下一个段落边界输出
+     */
+    private int sectionChars = 16_000;
+
+    /**
+     * 单个文件已解析、尚未写入完成的正文上限，解析线程超过后阻塞等待，堆占用与文件大小无关
+     */
+    private DataSize maxInFlightBytes = DataSize.ofMegabytes(8);
+
+    /**
+     * 解析 PDF 时 PDFBox 在堆上缓冲的上限，超出部分写到临时文件
+     */
+    private DataSize pdfMaxMainMemory = DataSize.ofMegabytes(64);
+
+    /**
+     * 每批向量化、写入的切片数，不超过向量库的批量上限
+     */
+    private int writeBatchSize = 256;
+
+    /**
+     * 同时解析、向量化的文件数
+     */
+    private int parallelism = 4;
+
+    /**
+     * 等待执行的文件数上限，超过后拒绝新的上传
+     */
+    private int queueCapacity = 256;
+
+    /**
+     * 已结束任务的进度保留时长
+     */
+    private Duration jobRetention = Duration.ofHours(1);
+
+    /**
+     * 启动时是否在向量表 metadata 上创建 GIN 索引，加速按标签过滤
+     */
+    private boolean createTagIndex = true;
+}
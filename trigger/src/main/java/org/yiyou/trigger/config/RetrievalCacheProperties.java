@@ -0,0 +1,31 @@
+package org.yiyou.trigger.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 检索结果缓存配置属性
+ */
+@Data
+@ConfigurationProperties(prefix = RetrievalCacheProperties.PREFIX)
+public class RetrievalCacheProperties {
+
+    public static final String PREFIX = "framework.rag.retrieval-cache";
+
+    /**
+     * 是否缓存相似度检索结果
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最大缓存条目数
+     */
+    private long maximumSize = 1000;
+
+    /**
+     * 写入后的过期时间
+     */
+    private Duration ttl = Duration.ofMinutes(10);
+}
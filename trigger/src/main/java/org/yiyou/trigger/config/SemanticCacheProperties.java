@@ -0,0 +1,46 @@
+package org.yiyou.trigger.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 语义回答缓存配置属性
+ */
+@Data
+@ConfigurationProperties(prefix = SemanticCacheProperties.PREFIX)
+public class SemanticCacheProperties {
+
+    public static final String PREFIX = "framework.chat.semantic-cache";
+
+    /**
+     * 是否启用，默认关闭
+     */
+    private boolean enabled = false;
+
+    /**
+     * 问题向量余弦相似度不低于该值才视为同一问题
+     */
+    private double similarityThreshold = 0.92;
+
+    /**
+     * 回答写入后的过期时间
+     */
+    private Duration ttl = Duration.ofHours(1);
+
+    /**
+     * 最多缓存的回答数
+     */
+    private long maximumSize = 2000;
+
+    /**
+     * 是否只在同一会话内复用回答；启用了 MEMORY 的对话配置总是按会话隔离
+     */
+    private boolean scopeByConversation = false;
+
+    /**
+     * 命中后回放时每个流式片段的字符数
+     */
+    private int replayChunkChars = 16;
+}
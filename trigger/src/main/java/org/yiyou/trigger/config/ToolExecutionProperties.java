@@ -0,0 +1,37 @@
+package org.yiyou.trigger.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.yiyou.trigger.enums.ToolExecutionMode;
+
+import java.time.Duration;
+
+/**
+ * 工具执行配置属性
+ */
+@Data
+@ConfigurationProperties(prefix = ToolExecutionProperties.PREFIX)
+public class ToolExecutionProperties {
+
+    public static final String PREFIX = "framework.chat.tool-execution";
+
+    /**
+     * 执行方式
+     */
+    private ToolExecutionMode mode = ToolExecutionMode.PARALLEL;
+
+    /**
+     * 全局同时执行的工具调用数上限
+     */
+    private int maxInFlight = 16;
+
+    /**
+     * 等待执行的工具调用数，超出时拒绝执行，把繁忙作为工具结果返回给模型
+     */
+    private int queueCapacity = 64;
+
+    /**
+     * 单个工具调用的超时时间，超时后把错误信息返回给模型
+     */
+    private Duration timeout = Duration.ofSeconds(30);
+}
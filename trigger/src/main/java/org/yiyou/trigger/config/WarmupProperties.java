@@ -0,0 +1,46 @@
+package org.yiyou.trigger.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 启动预热配置属性
+ */
+@Data
+@ConfigurationProperties(prefix = WarmupProperties.PREFIX)
+public class WarmupProperties {
+
+    public static final String PREFIX = "framework.warmup";
+
+    /**
+     * 整个预热的最长时间，超时后不再等待未完成的任务，服务照常就绪
+     */
+    private Duration timeout = Duration.ofSeconds(60);
+
+    /**
+     * 加载 HanLP 分词、停用词和关键词提取用到的词典
+     */
+    private boolean segmenter = true;
+
+    /**
+     * 执行一次向量检索，加载向量索引并建立数据库连接
+     */
+    private boolean vectorStore = true;
+
+    /**
+     * 探测检索使用的问题
+     */
+    private String probeQuery = "你好";
+
+    /**
+     * 并发完成 MCP 握手并列出工具
+     */
+    private boolean mcp = true;
+
+    /**
+     * 用合成数据反复执行分词、上下文装填等热点代码的次数，0 表示不做
+     */
+    private int jitIterations = 200;
+}
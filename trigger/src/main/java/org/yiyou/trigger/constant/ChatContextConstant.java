@@ -0,0 +1,22 @@
+package org.yiyou.trigger.constant;
+
+/**
+ * ChatClient 请求上下文中的参数名
+ */
+public final class ChatContextConstant {
+
+    /**
+     * 当前请求选择的知识库标签
+     */
+    public static final String RAG_TAG = "rag_tag";
+
+    /**
+     * 为 true 时跳过语义回答缓存
+     */
+    public static final String SEMANTIC_CACHE_BYPASS = "semantic_cache_bypass";
+
+    /**
+     * 跳过语义回答缓存的请求头
+     */
+    public static final String SEMANTIC_CACHE_BYPASS_HEADER = "X-Semantic-Cache-Bypass";
+}
@@ -5,4 +5,34 @@ public final class TriggerRedisConstant {
      * 优惠券模板缓存 Key
      */
     public static final String TAG_RAG_KEY = "tag_rag_key";
+
+    /**
+     * 知识库标签集合 Key，替代原先的 List 结构
+     */
+    public static final String TAG_RAG_SET_KEY = "tag_rag_set_key";
+
+    /**
+     * 向量缓存 Key 前缀，后接模型命名空间和内容哈希
+     */
+    public static final String EMBEDDING_CACHE_KEY_PREFIX = "embedding_cache:";
+
+    /**
+     * 源文档切片清单 Key 前缀，后接文档 ID（由标签和文件名确定），值为切片 ID 的 Set
+     */
+    public static final String RAG_MANIFEST_KEY_PREFIX = "rag_manifest:";
+
+    /**
+     * BM25 索引变更广播频道，多实例之间同步倒排索引
+     */
+    public static final String BM25_SYNC_CHANNEL = "rag_bm25_changes";
+
+    /**
+     * 对话记忆热窗口 Key 前缀，后接会话 ID，值为消息列表
+     */
+    public static final String CHAT_MEMORY_KEY_PREFIX = "chat_memory:";
+
+    /**
+     * 对话记忆热窗口版本号 Key 前缀，后接会话 ID，每次保存递增
+     */
+    public static final String CHAT_MEMORY_VERSION_KEY_PREFIX = "chat_memory_version:";
 }
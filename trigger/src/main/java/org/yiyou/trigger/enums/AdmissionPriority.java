@@ -0,0 +1,15 @@
+package org.yiyou.trigger.enums;
+
+/**
+ * 模型调用排队优先级，数值小的先出队
+ */
+public enum AdmissionPriority {
+    /**
+     * 用户正在等待的调用：对话、查询改写、/generate，未标记优先级时的默认值
+     */
+    INTERACTIVE,
+    /**
+     * 后台任务：对话摘要等，通过 AdmissionContext 标记
+     */
+    BATCH
+}
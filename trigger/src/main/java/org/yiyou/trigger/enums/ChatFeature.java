@@ -0,0 +1,31 @@
+package org.yiyou.trigger.enums;
+
+/**
+ * 对话配置可以组合的能力，每项对应一个 Advisor 或工具集
+ */
+public enum ChatFeature {
+    /**
+     * 打印请求与响应，调试用
+     */
+    LOGGER,
+    /**
+     * 在系统提示词中填充当前时间
+     */
+    TIME,
+    /**
+     * 对话记忆
+     */
+    MEMORY,
+    /**
+     * 语义回答缓存，与 TOOLS 同时配置时不生效
+     */
+    SEMANTIC_CACHE,
+    /**
+     * 知识库检索增强
+     */
+    RAG,
+    /**
+     * MCP 工具
+     */
+    TOOLS
+}
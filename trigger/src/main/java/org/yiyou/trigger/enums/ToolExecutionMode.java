@@ -0,0 +1,15 @@
+package org.yiyou.trigger.enums;
+
+/**
+ * 一轮模型响应中包含多个工具调用时的执行方式
+ */
+public enum ToolExecutionMode {
+    /**
+     * 逐个执行，Spring AI 默认行为
+     */
+    SEQUENTIAL,
+    /**
+     * 并发执行，按原顺序返回结果
+     */
+    PARALLEL
+}
@@ -1,64 +1,65 @@
 package org.yiyou.trigger.http;
 
-import com.hankcs.hanlp.HanLP;
-import com.hankcs.hanlp.seg.common.Term;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
-import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
-import org.springframework.ai.chat.client.advisor.api.Advisor;
 import org.springframework.ai.chat.memory.ChatMemory;
-import org.springframework.ai.chat.memory.repository.jdbc.JdbcChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.Usage;
 import org.springframework.ai.chat.model.ChatResponse;
-import org.springframework.ai.chat.prompt.PromptTemplate;
-import org.springframework.ai.mcp.AsyncMcpToolCallbackProvider;
-import org.springframework.ai.mcp.SyncMcpToolCallbackProvider;
-import org.springframework.ai.rag.advisor.RetrievalAugmentationAdvisor;
-import org.springframework.ai.rag.generation.augmentation.ContextualQueryAugmenter;
-import org.springframework.ai.rag.preretrieval.query.transformation.RewriteQueryTransformer;
-import org.springframework.ai.rag.preretrieval.query.transformation.TranslationQueryTransformer;
-import org.springframework.ai.rag.retrieval.join.ConcatenationDocumentJoiner;
-import org.springframework.ai.rag.retrieval.search.VectorStoreDocumentRetriever;
-import org.springframework.ai.template.st.StTemplateRenderer;
-import org.springframework.ai.vectorstore.VectorStore;
-import org.springframework.ai.document.Document;
-import org.springframework.ai.vectorstore.filter.Filter;
-import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.ai.chat.model.Generation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import org.yiyou.api.IAiService;
-import org.yiyou.trigger.advisor.TimeAdvisor;
+import org.yiyou.api.response.Response;
+import org.yiyou.api.dto.ChatStreamDeltaDTO;
+import org.yiyou.api.dto.ChatStreamUsageDTO;
+import org.yiyou.trigger.advisor.ChatProfile;
+import org.yiyou.trigger.admission.ModelAdmissionController;
+import org.yiyou.trigger.admission.ModelOverloadedException;
+import org.yiyou.trigger.advisor.ChatProfileRegistry;
+import org.yiyou.trigger.config.ChatStreamProperties;
+import org.yiyou.trigger.constant.ChatContextConstant;
+import org.yiyou.trigger.enums.ChatFeature;
+import org.yiyou.trigger.mcp.McpToolCatalog;
+import org.yiyou.trigger.metrics.ChatMetrics;
+import org.yiyou.trigger.service.RagTagService;
 import org.yiyou.trigger.tools.DateTimeTools;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @RestController
 @CrossOrigin("*")
 @RequestMapping("/ai/chat")
 @RequiredArgsConstructor
+@EnableConfigurationProperties(ChatStreamProperties.class)
 public class ChatClientController implements IAiService {
 
     @Autowired
     private ChatClient chatClient;
     @Autowired
-    JdbcChatMemoryRepository jdbcChatMemoryRepository;
+    private ChatProfileRegistry chatProfileRegistry;
     @Autowired
-    private VectorStore vectorStore;
+    private McpToolCatalog mcpToolCatalog;
     @Autowired
-    private PromptTemplate promptTemplate;
-    @Autowired
-    private ChatMemory chatMemory;
+    private DateTimeTools dateTimeTools;
     @Autowired
-    ChatClient.Builder chatClientBuilder;
+    private ChatStreamProperties chatStreamProperties;
     @Autowired
-    private AsyncMcpToolCallbackProvider toolCallbackProvider;
+    private ChatMetrics chatMetrics;
     @Autowired
-    private DateTimeTools dateTimeTools;
+    private ModelAdmissionController modelAdmissionController;
 
 
     @GetMapping("/startConversation")
@@ -69,103 +70,118 @@ public class ChatClientController implements IAiService {
     @Override
     @GetMapping("/generate")
     public Map generate(String model, @RequestParam(value = "message", defaultValue = "9.9和9.11谁大") String message) {
-        return Map.of("generation", chatClient.prompt().call().content());
+        ChatResponse response = chatMetrics.call("chat.generate", () -> chatClient.prompt().call().chatResponse());
+        return Map.of("generation", response.getResult().getOutput().getText());
     }
 
     @Override
+    public Flux<ChatResponse> generateStream(String model, String message, String conversationId, String ragTag) {
+        return generateStream(model, message, conversationId, ragTag, null, false);
+    }
+
+    /**
+     * 排队已满在返回流之前以 429 拒绝；已开始推送后排队超时，以一条 finishReason 为 ERROR 的响应结束，
+     * 元数据中带错误码、原因和重试间隔（秒）
+     */
     @GetMapping("/generateStream")
-    public Flux<ChatResponse> generateStream(String model, @RequestParam(value = "message", defaultValue = "Tell me a joke") String message, @RequestParam String conversationId) {
+    public Flux<ChatResponse> generateStream(String model, @RequestParam(value = "message", defaultValue = "Tell me a joke") String message, @RequestParam String conversationId,
+                                             @RequestParam(value = "ragTag", required = false) String ragTag,
+                                             @RequestParam(value = "profile", required = false) String profileName,
+                                             @RequestHeader(value = ChatContextConstant.SEMANTIC_CACHE_BYPASS_HEADER, defaultValue = "false") boolean semanticCacheBypass) {
+        ChatClient.ChatClientRequestSpec request = prompt(message, conversationId, ragTag, profileName, semanticCacheBypass);
+        // 响应开始写出后状态码已提交，排队已满要在返回流之前拒绝
+        modelAdmissionController.tryAdmit();
+        return chatMetrics.instrument("chat.generateStream", request.stream().chatResponse())
+                .onErrorResume(ModelOverloadedException.class, e -> Mono.just(overloaded(e)));
+    }
 
-        // 1. 分词与向量检索
-        List<Term> termList = HanLP.segment(message);
-        List<Object> messageList = termList.stream()
-                .filter(term -> StringUtils.isNotBlank(term.word))
-                .map(term -> term.word)
-                .collect(Collectors.toList());
-        FilterExpressionBuilder filterExpression = new FilterExpressionBuilder();
-        Filter.Expression expression = filterExpression.in("knowledge", messageList).build();
+    /**
+     * 精简流式输出：只发送文本增量，按时间窗口合并 token，用量在结尾的 done 事件中发送一次
+     * 排队已满在返回流之前以 429 拒绝；已开始推送后排队超时，以 error 事件结束并带上重试间隔
+     */
+    @GetMapping(value = "/generateStreamDelta", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> generateStreamDelta(@RequestParam(value = "message", defaultValue = "Tell me a joke") String message, @RequestParam String conversationId,
+                                                             @RequestParam(value = "ragTag", required = false) String ragTag,
+                                                             @RequestParam(value = "profile", required = false) String profileName,
+                                                             @RequestHeader(value = ChatContextConstant.SEMANTIC_CACHE_BYPASS_HEADER, defaultValue = "false") boolean semanticCacheBypass) {
+        ChatClient.ChatClientRequestSpec request = prompt(message, conversationId, ragTag, profileName, semanticCacheBypass);
+        modelAdmissionController.tryAdmit();
+        long start = System.currentTimeMillis();
+        AtomicReference<ChatResponse> last = new AtomicReference<>();
+        AtomicLong deltas = new AtomicLong();
 
-        Advisor retrievalAugmentationAdvisor = RetrievalAugmentationAdvisor.builder()
-                .queryTransformers(
-                        // 重写查询
-                        RewriteQueryTransformer.builder()
-                                .chatClientBuilder(chatClient.mutate())
-                                .build(),
-                        // 翻译查询
-                        TranslationQueryTransformer.builder()
-                                .chatClientBuilder(chatClientBuilder)
-                                .targetLanguage("chinese")
-                                .build()
-                )
-                // 查询扩展
-/*                .queryExpander(MultiQueryExpander.builder()
-                        .chatClientBuilder(chatClientBuilder)
-                        .numberOfQueries(1)
-                        .includeOriginal(false)
-                        .build())*/
-                // 文档检索
-                .documentRetriever(VectorStoreDocumentRetriever.builder()
-                        .similarityThreshold(0.4)
-                        .topK(20)
-                        .vectorStore(vectorStore)
-                        // 这里是过滤表达式
-                        //.filterExpression(expression)
-                        .build())
-                // 文档连接
-                .documentJoiner(new ConcatenationDocumentJoiner())
-                // 去重
-                .documentPostProcessors(
-                        (query, documents) ->
-                                new ArrayList<>(documents.stream()
-                                        .map(document -> new Document(document.getText().replaceAll("[\\s\\n\\r]+", " ").trim(), document.getMetadata()))
-                                        .collect(
-                                                Collectors.toMap(
-                                                        Document::getText, // 使用文本作为 key
-                                                        doc -> doc, // 使用 Document 作为 value
-                                                        (existing, replacement) -> existing // 如果重复，保留第一个
-                                                )
-                                        )
-                                        .values())
-                )
-                // 查询增强
-                .queryAugmenter(ContextualQueryAugmenter.builder()
-                        // 允许无上下文
-                        .allowEmptyContext(true)
-                        .promptTemplate(promptTemplate)
-                        .build())
-                .build();
-        String string = chatMemory.get(conversationId).toString();
-        PromptTemplate promptTemplate1 = PromptTemplate.builder()
-                .renderer(StTemplateRenderer.builder()
-                        .startDelimiterToken('<')
-                        .endDelimiterToken('>')
-                        .build())
-                .template("""
-                                    "<instructions>
-                                    使用LONG_TERM_MEMORY部分的长期对话记忆来提供准确的答案。
-                                    ---------------------
-                                    LONG_TERM_MEMORY:
-                                    <long_term_memory>
-                                    ---------------------"    
-                        """)
-                .build();
+        Flux<ServerSentEvent<Object>> deltaEvents = chatMetrics.instrument("chat.generateStreamDelta", request.stream().chatResponse())
+                .doOnNext(last::set)
+                .mapNotNull(response -> response.getResult() == null ? null : response.getResult().getOutput().getText())
+                .filter(StringUtils::isNotEmpty)
+                .bufferTimeout(chatStreamProperties.getMaxChunks(), chatStreamProperties.getWindow())
+                .map(chunks -> {
+                    deltas.incrementAndGet();
+                    return ServerSentEvent.<Object>builder(ChatStreamDeltaDTO.builder().content(String.join("", chunks)).build())
+                            .event("delta")
+                            .build();
+                });
+        Mono<ServerSentEvent<Object>> doneEvent = Mono.fromSupplier(() -> ServerSentEvent.<Object>builder(usage(last.get(), deltas.get(), System.currentTimeMillis() - start))
+                .event("done")
+                .build());
+        return deltaEvents.concatWith(doneEvent)
+                .onErrorResume(ModelOverloadedException.class, e -> Mono.just(ServerSentEvent.<Object>builder(
+                                Response.<Void>builder().code("0002").message(e.getMessage()).build())
+                        .event("error")
+                        .retry(e.getRetryAfter())
+                        .build()));
+    }
 
-        return chatClient.prompt()
+    private ChatClient.ChatClientRequestSpec prompt(String message, String conversationId, String ragTag, String profileName, boolean semanticCacheBypass) {
+        RagTagService.validate(ragTag, false);
+        // Advisor 链在启动时按配置构建好，这里只挑选
+        ChatProfile profile = chatProfileRegistry.get(profileName);
+
+        ChatClient.ChatClientRequestSpec request = chatClient.prompt()
                 .user(message)
-                .advisors(
-                        SimpleLoggerAdvisor.builder().build(),
-                        TimeAdvisor.builder().build(),
-                        MessageChatMemoryAdvisor.builder(chatMemory).build()
-                        //VectorStoreChatMemoryAdvisor.builder(vectorStore).systemPromptTemplate(promptTemplate1).build(),
-                        //retrievalAugmentationAdvisor2
-                )
+                .advisors(profile.advisors())
                 .advisors(a -> a.params(Map.of(ChatMemory.CONVERSATION_ID, conversationId,
-                        "time", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy年MM月dd日 HH时mm分ss秒"))
-                )))
-                //.tools(dateTimeTools)
-                .toolCallbacks(toolCallbackProvider.getToolCallbacks())
-                .stream()
-                .chatResponse();
+                        "time", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy年MM月dd日 HH时mm分ss秒")),
+                        ChatContextConstant.SEMANTIC_CACHE_BYPASS, semanticCacheBypass,
+                        ChatContextConstant.RAG_TAG, StringUtils.defaultString(ragTag)
+                )));
+        if (profile.has(ChatFeature.TOOLS)) {
+            // 读启动时缓存的工具目录，不再每轮通过 SSE 列出工具
+            request.tools(dateTimeTools)
+                    .toolCallbacks(mcpToolCatalog.getToolCallbacks());
+        }
+        return request;
+    }
+
+    private static ChatResponse overloaded(ModelOverloadedException e) {
+        return ChatResponse.builder()
+                .generations(List.of(new Generation(new AssistantMessage(""), ChatGenerationMetadata.builder().finishReason("ERROR").build())))
+                .metadata(ChatResponseMetadata.builder()
+                        .keyValue("code", "0002")
+                        .keyValue("message", e.getMessage())
+                        .keyValue("retryAfter", Math.max(1, e.getRetryAfter().toSeconds()))
+                        .build())
+                .build();
+    }
 
+    private static ChatStreamUsageDTO usage(ChatResponse response, long deltas, long elapsedMillis) {
+        ChatStreamUsageDTO.ChatStreamUsageDTOBuilder usage = ChatStreamUsageDTO.builder().deltas(deltas).elapsedMillis(elapsedMillis);
+        if (response == null) {
+            return usage.build();
+        }
+        if (response.getResult() != null && response.getResult().getMetadata() != null) {
+            usage.finishReason(response.getResult().getMetadata().getFinishReason());
+        }
+        ChatResponseMetadata metadata = response.getMetadata();
+        if (metadata != null) {
+            usage.model(metadata.getModel());
+            Usage tokens = metadata.getUsage();
+            if (tokens != null) {
+                usage.promptTokens(tokens.getPromptTokens())
+                        .completionTokens(tokens.getCompletionTokens())
+                        .totalTokens(tokens.getTotalTokens());
+            }
+        }
+        return usage.build();
     }
-}
\ No newline at end of file
+}
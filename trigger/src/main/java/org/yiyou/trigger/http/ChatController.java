@@ -1,7 +1,7 @@
 package org.yiyou.trigger.http;
 
-import com.hankcs.hanlp.HanLP;
-import com.hankcs.hanlp.seg.common.Term;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.SystemMessage;
@@ -10,21 +10,33 @@ import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.SystemPromptTemplate;
 import org.springframework.ai.document.Document;
-import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.VectorStore;
-import org.springframework.ai.vectorstore.filter.Filter;
-import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import org.yiyou.api.IAiService;
+import org.yiyou.trigger.admission.ModelAdmissionController;
+import org.yiyou.trigger.cache.RetrievalCache;
+import org.yiyou.trigger.config.HybridRetrievalProperties;
+import org.yiyou.trigger.constant.ChatContextConstant;
 import org.yiyou.trigger.enums.MyPrompt;
+import org.yiyou.trigger.metrics.ChatMetrics;
+import org.yiyou.trigger.rag.Bm25Index;
+import org.yiyou.trigger.rag.CachingDocumentRetriever;
+import org.yiyou.trigger.rag.ChunkRepository;
+import org.yiyou.trigger.rag.ContextPacker;
+import org.yiyou.trigger.rag.HybridDocumentRetriever;
+import org.yiyou.trigger.service.RagTagService;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+@Slf4j
 @RestController
 @CrossOrigin("*")
 @RequestMapping("/ai")
@@ -33,39 +45,66 @@ public class ChatController implements IAiService {
     @Autowired
     private ChatModel chatModel;
     @Autowired
-    private VectorStore vectorStore;
+    private RetrievalCache retrievalCache;
+    @Autowired
+    private Bm25Index bm25Index;
+    @Autowired
+    private ChunkRepository chunkRepository;
+    @Autowired
+    private HybridRetrievalProperties hybridRetrievalProperties;
+    @Autowired
+    private ContextPacker contextPacker;
+    @Autowired
+    private ChatMetrics chatMetrics;
+    @Autowired
+    private Scheduler blockingScheduler;
+    @Autowired
+    private ModelAdmissionController modelAdmissionController;
+
+    private DocumentRetriever documentRetriever;
+
+    /**
+     * 检索器只依赖单例组件，创建一次供所有请求共用
+     */
+    @PostConstruct
+    public void init() {
+        this.documentRetriever = new HybridDocumentRetriever(new CachingDocumentRetriever(retrievalCache, 0.5d, 5), bm25Index, chunkRepository, 5, hybridRetrievalProperties.getRrfK());
+    }
 
     @Override
     @GetMapping("/generate")
     public Map generate(String model, @RequestParam(value = "message", defaultValue = "9.9和9.11谁大") String message) {
-        String call = this.chatModel.call(message);
-        System.out.println(call);
+        ChatResponse response = chatMetrics.call("ai.generate", () -> this.chatModel.call(new Prompt(message)));
+        String call = response.getResult().getOutput().getText();
+        log.debug("generate 回答 {}", call);
         return Map.of("generation", call);
     }
 
     @Override
     @GetMapping("/generateStream")
-    public Flux<ChatResponse> generateStream(String model, @RequestParam(value = "message", defaultValue = "Tell me a joke") String message, @RequestParam String conversationId) {
+    public Flux<ChatResponse> generateStream(String model, @RequestParam(value = "message", defaultValue = "Tell me a joke") String message, @RequestParam String conversationId,
+                                             @RequestParam(value = "ragTag", required = false) String ragTag) {
 
-        List<Term> termList = HanLP.segment(message);
-        List<Object> messageList = termList.stream()
-                .filter(term -> StringUtils.isNotBlank(term.word))
-                .map(term -> term.word)
-                .collect(Collectors.toList());
-        FilterExpressionBuilder filterExpression = new FilterExpressionBuilder();
-        Filter.Expression expression = filterExpression.in("knowledge", messageList).build();
+        // 在返回流之前校验，不合法时直接 400
+        RagTagService.validate(ragTag, false);
+        modelAdmissionController.tryAdmit();
+        // 检索走数据库和向量接口，是阻塞调用，不在请求线程上执行
+        Flux<ChatResponse> response = Mono.fromCallable(() -> ragPrompt(message, ragTag))
+                .subscribeOn(blockingScheduler)
+                .flatMapMany(this.chatModel::stream);
+        return chatMetrics.instrument("ai.generateStream", response);
+    }
 
-        SearchRequest request = SearchRequest
-                .builder()
-                .query(message)
-                .topK(5)
-                .similarityThreshold(0.5d) // 匹配度
-                .filterExpression(expression)// 这里是过滤表达式
+    private Prompt ragPrompt(String message, String ragTag) {
+        // 向量检索与 BM25 关键词检索融合，替代原先按分词结果过滤 knowledge 元数据的做法
+        Query query = Query.builder()
+                .text(message)
+                .context(StringUtils.isBlank(ragTag) ? Map.of() : Map.of(ChatContextConstant.RAG_TAG, ragTag))
                 .build();
-
-        List<Document> documents = vectorStore.similaritySearch(request);
-        String documentsCollectors = documents.stream().map(Document::getText).map(String::trim).distinct().collect(Collectors.joining());
-        System.out.println(documentsCollectors);
+        List<Document> documents = documentRetriever.retrieve(query);
+        // 去重、MMR 多样性挑选、按 token 预算装填
+        String documentsCollectors = contextPacker.process(query, documents).stream().map(Document::getText).collect(Collectors.joining("\n"));
+        log.debug("RAG 装填文档 {}", documentsCollectors);
 
         Message ragMessage = new SystemPromptTemplate(MyPrompt.SYSTEM_PROMPT.getValue()).createMessage(Map.of("documents", documentsCollectors));
 
@@ -73,7 +112,6 @@ public class ChatController implements IAiService {
         //messages.add(new UserMessage(message));
         messages.add(ragMessage);
         messages.add(new SystemMessage(MyPrompt.SYSTEM_PROMPT.getValue()));
-
-        return this.chatModel.stream(new Prompt(messages));
+        return new Prompt(messages);
     }
 }
\ No newline at end of file
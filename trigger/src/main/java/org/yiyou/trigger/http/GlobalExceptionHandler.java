@@ -0,0 +1,27 @@
+package org.yiyou.trigger.http;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.yiyou.api.response.Response;
+import org.yiyou.trigger.admission.ModelOverloadedException;
+
+@Slf4j
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+
+    /**
+     * 模型调用被准入控制拒绝：返回 429 和 Retry-After，客户端按间隔重试
+     * 只对响应尚未提交的请求生效，流式接口在返回流之前调用 ModelAdmissionController.tryAdmit
+     */
+    @ExceptionHandler(ModelOverloadedException.class)
+    public ResponseEntity<Response<Void>> handleModelOverloaded(ModelOverloadedException e) {
+        log.warn("模型调用被拒绝 {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())))
+                .body(Response.<Void>builder().code("0002").message(e.getMessage()).build());
+    }
+}
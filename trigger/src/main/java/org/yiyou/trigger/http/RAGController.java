@@ -1,24 +1,20 @@
 package org.yiyou.trigger.http;
 
 
-import com.hankcs.hanlp.HanLP;
-import com.hankcs.hanlp.seg.common.Term;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
-import org.springframework.ai.document.Document;
-import org.springframework.ai.reader.tika.TikaDocumentReader;
-import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.yiyou.api.IRAGService;
+import org.yiyou.api.dto.IngestionJobDTO;
 import org.yiyou.api.response.Response;
-import org.yiyou.trigger.constant.TriggerRedisConstant;
+import org.yiyou.trigger.service.IngestionJob;
+import org.yiyou.trigger.service.IngestionJobService;
+import org.yiyou.trigger.service.RagTagService;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @Slf4j
 @RestController()
@@ -26,51 +22,87 @@ import java.util.List;
 @RequestMapping("/ai/rag/")
 public class RAGController implements IRAGService {
     @Autowired
-    private VectorStore vectorStore;
+    private IngestionJobService ingestionJobService;
     @Autowired
-    private StringRedisTemplate stringRedisTemplate;
+    private RagTagService ragTagService;
     @Override
     @GetMapping("query_rag_tag_list")
     public Response<List<String>> queryRagTagList() {
-        List<String> elements = stringRedisTemplate.opsForList().range(TriggerRedisConstant.TAG_RAG_KEY, 0, -1);
         return Response.<List<String>>builder()
                 .code("0000")
                 .message("调用成功")
-                .data(elements)
+                .data(ragTagService.list())
                 .build();
     }
 
     @PostMapping(value = "file/upload", headers = "content-type=multipart/form-data")
     @Override
     public Response<String> uploadFile(@RequestParam("ragTag") String ragTag, @RequestParam("file") List<MultipartFile> files) {
+        RagTagService.validate(ragTag, true);
         log.info("上传知识库开始 {}", ragTag);
-        for (MultipartFile file : files) {
-            TikaDocumentReader documentReader = new TikaDocumentReader(file.getResource());
-            List<Document> documents = documentReader.get();
-            List<Document> documentSplitterList = new ArrayList<>();
-
-            for (Document doc : documents) {
-                String text = doc.getText();
-                List<Term> termList = HanLP.segment(text);
-                termList.forEach(term -> {
-                    if(StringUtils.isNotBlank(term.word)){
-                        Document segmentedDoc = new Document(text);
-                        segmentedDoc.getMetadata().put("knowledge", term.word);
-                        documentSplitterList.add(segmentedDoc);
-                    }
-                });
-            }
-
-            vectorStore.accept(documentSplitterList);
+        try {
+            IngestionJob job = ingestionJobService.submit(ragTag, files);
+            return Response.<String>builder()
+                    .code("0000")
+                    .message("调用成功")
+                    .data(job.getJobId())
+                    .build();
+        } catch (IllegalArgumentException e) {
+            log.warn("上传知识库失败 {} {}", ragTag, e.getMessage());
+            return Response.<String>builder()
+                    .code("0001")
+                    .message(e.getMessage())
+                    .build();
+        } catch (RejectedExecutionException | IOException e) {
+            log.error("上传知识库失败 {}", ragTag, e);
+            return Response.<String>builder()
+                    .code("0001")
+                    .message(e.getMessage())
+                    .build();
+        }
+    }
 
-            List<String> elements = stringRedisTemplate.opsForList().range(TriggerRedisConstant.TAG_RAG_KEY, 0, -1);
-            if (elements == null || !elements.contains(ragTag)) {
-                Assert.isTrue(stringRedisTemplate.opsForList().rightPush(TriggerRedisConstant.TAG_RAG_KEY, ragTag) > elements.size(), "添加标签失败");
-            }
+    @GetMapping("job/{jobId}")
+    @Override
+    public Response<IngestionJobDTO> queryIngestionJob(@PathVariable("jobId") String jobId) {
+        IngestionJob job = ingestionJobService.get(jobId);
+        if (job == null) {
+            return Response.<IngestionJobDTO>builder()
+                    .code("0001")
+                    .message("任务不存在或已过期")
+                    .build();
         }
+        return Response.<IngestionJobDTO>builder()
+                .code("0000")
+                .message("调用成功")
+                .data(job.toDTO())
+                .build();
+    }
 
-        log.info("上传知识库完成 {}", ragTag);
-        return Response.<String>builder().code("0000").message("调用成功").build();
+    @DeleteMapping("file")
+    @Override
+    public Response<Integer> deleteDocument(@RequestParam("ragTag") String ragTag, @RequestParam("fileName") String fileName) {
+        int removed;
+        try {
+            removed = ingestionJobService.deleteDocument(ragTag, fileName);
+        } catch (IllegalArgumentException e) {
+            return Response.<Integer>builder()
+                    .code("0001")
+                    .message(e.getMessage())
+                    .build();
+        }
+        if (removed == 0) {
+            return Response.<Integer>builder()
+                    .code("0001")
+                    .message("文档不存在")
+                    .build();
+        }
+        log.info("删除知识库文档 {} {} 切片数 {}", ragTag, fileName, removed);
+        return Response.<Integer>builder()
+                .code("0000")
+                .message("调用成功")
+                .data(removed)
+                .build();
     }
 
 }
@@ -0,0 +1,144 @@
+package org.yiyou.trigger.mcp;
+
+import io.modelcontextprotocol.client.McpAsyncClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.mcp.AsyncMcpToolCallback;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.yiyou.trigger.config.McpToolCatalogProperties;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MCP 工具目录：启动预热时并发连接各服务并列出工具，请求只读快照
+ * <p>
+ * 到期或收到 tools/list_changed 通知后在后台刷新，单个服务超时或出错时继续使用它的旧列表，
+ * 不会让某个慢服务拖慢每一轮对话。客户端未完成握手时先握手再列工具。
+ * 刷新进行中收到的变更通知会记下，当前刷新结束后再刷新一次，不会丢掉进行中那次刷新之后的变更。
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(McpToolCatalogProperties.class)
+public class McpToolCatalog {
+
+    private final ObjectProvider<List<McpAsyncClient>> mcpClients;
+    private final McpToolCatalogProperties properties;
+    private final Map<McpAsyncClient, List<ToolCallback>> tools = new ConcurrentHashMap<>();
+    private final Map<McpAsyncClient, Instant> nextRefresh = new ConcurrentHashMap<>();
+    private final Set<McpAsyncClient> refreshing = ConcurrentHashMap.newKeySet();
+    private final Set<McpAsyncClient> dirty = ConcurrentHashMap.newKeySet();
+    private volatile ToolCallback[] snapshot = new ToolCallback[0];
+
+    public McpToolCatalog(ObjectProvider<List<McpAsyncClient>> mcpClients, McpToolCatalogProperties properties) {
+        this.mcpClients = mcpClients;
+        this.properties = properties;
+    }
+
+    /**
+     * 并发连接所有服务并列出工具，由启动预热调用
+     */
+    public Mono<Void> load() {
+        long start = System.currentTimeMillis();
+        return Flux.fromIterable(clients())
+                .flatMap(this::refresh)
+                .then(Mono.fromRunnable(() -> log.info("MCP 工具目录已加载 工具数 {} 耗时 {}ms", snapshot.length, System.currentTimeMillis() - start)));
+    }
+
+    /**
+     * 返回当前快照，到期的服务在后台刷新，不阻塞调用方
+     */
+    public ToolCallback[] getToolCallbacks() {
+        Instant now = Instant.now();
+        for (McpAsyncClient client : clients()) {
+            if (!now.isBefore(nextRefresh.getOrDefault(client, Instant.MIN))) {
+                refresh(client).subscribe();
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * 某个服务的工具列表变化时调用，只有该服务在后台重新列出工具
+     *
+     * @param connectionName 配置中的连接名，自动配置创建的客户端名称为 "客户端名 - 连接名"
+     */
+    public void invalidate(String connectionName) {
+        List<McpAsyncClient> changed = clients().stream()
+                .filter(client -> matches(client, connectionName))
+                .toList();
+        if (changed.isEmpty()) {
+            // 名称对不上时不能确定是哪个服务，全部刷新
+            log.warn("MCP 工具变更通知找不到对应的客户端 {}，刷新全部服务", connectionName);
+            changed = clients();
+        }
+        changed.forEach(client -> {
+            nextRefresh.remove(client);
+            // 正在刷新的服务不会再启动一次，由进行中的刷新结束时看到标记后补刷
+            dirty.add(client);
+            refresh(client).subscribe();
+        });
+    }
+
+    private static boolean matches(McpAsyncClient client, String connectionName) {
+        String name = client.getClientInfo().name();
+        return name.equals(connectionName) || name.endsWith(" - " + connectionName);
+    }
+
+    private Mono<Void> refresh(McpAsyncClient client) {
+        if (!refreshing.add(client)) {
+            return Mono.empty();
+        }
+        String name = client.getClientInfo().name();
+        return Mono.defer(() -> {
+                    // 在列工具之前清除标记，之后到达的通知会让本次结束后再刷新一次
+                    dirty.remove(client);
+                    return client.isInitialized() ? Mono.empty() : client.initialize();
+                })
+                .then(Mono.defer(() -> client.listTools().timeout(properties.getTimeout())))
+                .doOnNext(result -> {
+                    tools.put(client, result.tools().stream()
+                            .<ToolCallback>map(tool -> new AsyncMcpToolCallback(client, tool))
+                            .toList());
+                    nextRefresh.put(client, Instant.now().plus(properties.getTtl()));
+                    log.info("MCP 工具列表已刷新 {} 工具数 {}", name, result.tools().size());
+                })
+                .doOnError(e -> {
+                    nextRefresh.put(client, Instant.now().plus(properties.getRetryInterval()));
+                    log.warn("MCP 工具列表刷新失败，继续使用旧列表 {} {}", name, e.toString());
+                })
+                .onErrorResume(e -> Mono.empty())
+                .doFinally(signal -> {
+                    refreshing.remove(client);
+                    rebuildSnapshot();
+                    if (dirty.contains(client)) {
+                        refresh(client).subscribe();
+                    }
+                })
+                .then();
+    }
+
+    private void rebuildSnapshot() {
+        Map<String, ToolCallback> byName = new LinkedHashMap<>();
+        for (McpAsyncClient client : clients()) {
+            for (ToolCallback callback : tools.getOrDefault(client, List.of())) {
+                if (byName.putIfAbsent(callback.getToolDefinition().name(), callback) != null) {
+                    log.warn("MCP 工具重名，保留先注册的 {}", callback.getToolDefinition().name());
+                }
+            }
+        }
+        snapshot = byName.values().toArray(new ToolCallback[0]);
+    }
+
+    private List<McpAsyncClient> clients() {
+        return mcpClients.getIfAvailable(List::of);
+    }
+}
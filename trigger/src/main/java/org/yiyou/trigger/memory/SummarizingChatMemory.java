@@ -0,0 +1,225 @@
+package org.yiyou.trigger.memory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.yiyou.trigger.admission.AdmissionContext;
+import org.yiyou.trigger.config.ChatMemoryProperties;
+import org.yiyou.trigger.enums.AdmissionPriority;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * 滚动摘要对话记忆：会话超过 token 预算后，在后台把较早的消息折叠进一条摘要系统消息，最近的消息原样保留
+ * <p>
+ * 摘要在独立线程池中生成，不占用响应路径；读取时按 token 上限从最新消息往前截取，
+ * 摘要尚未完成时提示词大小也有上限。同一会话的追加与摘要回写按分段锁串行，调用模型生成摘要时不持锁。
+ */
+@Slf4j
+public class SummarizingChatMemory implements ChatMemory, DisposableBean {
+
+    static final String SUMMARY_PREFIX = "【此前对话摘要】";
+
+    private static final String SUMMARY_PROMPT = """
+            下面是一段对话的已有摘要和之后的对话记录，请把它们合并为一份新的摘要。
+            保留用户的身份、诉求、已确认的事实、结论和尚未解决的问题，省略寒暄和重复内容。
+            只输出摘要正文，不超过 %d 字。
+
+            已有摘要：
+            %s
+
+            对话记录：
+            %s
+            """;
+
+    private static final int CONVERSATION_LOCK_STRIPES = 64;
+
+    private final ChatMemoryRepository repository;
+    private final ChatClient chatClient;
+    private final ChatMemoryProperties properties;
+    private final ChatMemoryProperties.Compaction compaction;
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+    private final Set<String> summarizing = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor executor;
+    private final Lock[] conversationLocks = new Lock[CONVERSATION_LOCK_STRIPES];
+
+    public SummarizingChatMemory(ChatMemoryRepository repository, ChatClient chatClient, ChatMemoryProperties properties) {
+        this.repository = repository;
+        this.chatClient = chatClient;
+        this.properties = properties;
+        this.compaction = properties.getCompaction();
+        this.executor = new ThreadPoolExecutor(compaction.getParallelism(), compaction.getParallelism(),
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(compaction.getQueueCapacity()),
+                new CustomizableThreadFactory("chat-memory-summary-"));
+        Arrays.setAll(conversationLocks, i -> new ReentrantLock());
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        List<Message> memory;
+        Lock lock = conversationLock(conversationId);
+        lock.lock();
+        try {
+            memory = new ArrayList<>(repository.findByConversationId(conversationId));
+            memory.addAll(messages);
+            // 摘要跟不上时仍按条数兜底，摘要消息始终保留
+            while (memory.size() > properties.getMaxMessages() && memory.size() > 1) {
+                memory.remove(isSummary(memory.get(0)) ? 1 : 0);
+            }
+            repository.saveAll(conversationId, memory);
+        } finally {
+            lock.unlock();
+        }
+
+        if (tokens(memory) > compaction.getTriggerTokens() && summarizing.add(conversationId)) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        summarize(conversationId);
+                    } catch (Exception e) {
+                        log.error("对话摘要失败 {}", conversationId, e);
+                    } finally {
+                        summarizing.remove(conversationId);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                summarizing.remove(conversationId);
+                log.warn("摘要队列已满，跳过本轮 {}", conversationId);
+            }
+        }
+    }
+
+    /**
+     * 摘要（如有）加上从最新往前、总量不超过 maxPromptTokens 的消息
+     */
+    @Override
+    public List<Message> get(String conversationId) {
+        List<Message> memory = repository.findByConversationId(conversationId);
+        if (memory.isEmpty()) {
+            return memory;
+        }
+        Message summary = isSummary(memory.get(0)) ? memory.get(0) : null;
+        int budget = compaction.getMaxPromptTokens() - (summary == null ? 0 : tokens(summary));
+        LinkedList<Message> recent = new LinkedList<>();
+        for (int i = memory.size() - 1; i >= (summary == null ? 0 : 1); i--) {
+            budget -= tokens(memory.get(i));
+            if (budget < 0) {
+                break;
+            }
+            recent.addFirst(memory.get(i));
+        }
+        if (summary != null) {
+            recent.addFirst(summary);
+        }
+        return recent;
+    }
+
+    @Override
+    public void clear(String conversationId) {
+        Lock lock = conversationLock(conversationId);
+        lock.lock();
+        try {
+            repository.deleteByConversationId(conversationId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private void summarize(String conversationId) {
+        long start = System.currentTimeMillis();
+        List<Message> snapshot = repository.findByConversationId(conversationId);
+        String previous = !snapshot.isEmpty() && isSummary(snapshot.get(0)) ? snapshot.get(0).getText().substring(SUMMARY_PREFIX.length()) : "";
+        int from = previous.isEmpty() ? 0 : 1;
+
+        // 从最新往前保留 recentTokens，其余折叠进摘要
+        int to = snapshot.size();
+        int budget = compaction.getRecentTokens();
+        while (to > from && (budget -= tokens(snapshot.get(to - 1))) >= 0) {
+            to--;
+        }
+        if (to <= from) {
+            return;
+        }
+        List<Message> older = snapshot.subList(from, to);
+        String transcript = older.stream()
+                .map(message -> message.getMessageType().getValue() + ": " + message.getText())
+                .collect(Collectors.joining("\n"));
+        // 后台任务，排在用户请求之后
+        String summary = AdmissionContext.call(AdmissionPriority.BATCH, () -> chatClient.prompt()
+                .user(String.format(SUMMARY_PROMPT, compaction.getRecentTokens(), previous.isEmpty() ? "无" : previous, transcript))
+                .call()
+                .content());
+
+        // 摘要期间可能有新消息写入，持锁重读，只在被折叠的部分仍在原位时替换，检查与回写之间不会再有追加
+        Lock lock = conversationLock(conversationId);
+        lock.lock();
+        try {
+            List<Message> current = repository.findByConversationId(conversationId);
+            if (current.size() < to || !sameMessages(snapshot.subList(0, to), current.subList(0, to))) {
+                log.info("对话已变更，放弃本次摘要 {}", conversationId);
+                return;
+            }
+            List<Message> compacted = new ArrayList<>(current.size() - to + 1);
+            compacted.add(new SystemMessage(SUMMARY_PREFIX + summary));
+            compacted.addAll(current.subList(to, current.size()));
+            repository.saveAll(conversationId, compacted);
+        } finally {
+            lock.unlock();
+        }
+        log.info("对话摘要完成 {} 折叠消息 {} 条 耗时 {}ms", conversationId, older.size(), System.currentTimeMillis() - start);
+    }
+
+    private Lock conversationLock(String conversationId) {
+        return conversationLocks[Math.floorMod(conversationId.hashCode(), CONVERSATION_LOCK_STRIPES)];
+    }
+
+    private int tokens(List<Message> messages) {
+        return messages.stream().mapToInt(this::tokens).sum();
+    }
+
+    private int tokens(Message message) {
+        return message.getText() == null ? 0 : tokenCountEstimator.estimate(message.getText());
+    }
+
+    static boolean isSummary(Message message) {
+        return message.getMessageType() == MessageType.SYSTEM && message.getText() != null && message.getText().startsWith(SUMMARY_PREFIX);
+    }
+
+    private static boolean sameMessages(List<Message> expected, List<Message> actual) {
+        for (int i = 0; i < expected.size(); i++) {
+            Message a = expected.get(i);
+            Message b = actual.get(i);
+            if (a != b && (a.getMessageType() != b.getMessageType() || !Objects.equals(a.getText(), b.getText()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,474 @@
+package org.yiyou.trigger.memory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.yiyou.trigger.config.ChatMemoryProperties;
+import org.yiyou.trigger.constant.TriggerRedisConstant;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分层对话记忆存储：活跃会话常驻内存，数据库只追加新消息并由后台线程批量写入
+ * <p>
+ * MessageWindowChatMemory 每轮都会读出整个窗口再整体保存，这里按对象引用比对缓存中的旧窗口，
+ * 只把新增的消息排队写库，读写开销与新增消息数成正比而不是与窗口长度成正比。
+ * 窗口滑动时记下该会话，刷库后删掉库里窗口之外的旧消息；冷加载只读最近 maxMessages 条；
+ * 无法识别为追加的保存（清空、替换、摘要改写等）退化为整段重写。
+ * 同一会话的读写按分段锁串行，数据库操作不在 Caffeine 的 compute 里执行，不会卡住同一哈希桶的其他会话。
+ * <p>
+ * 多实例部署（shared = true）时热窗口放在 Redis：每个会话一个消息列表和一个版本号，进程内缓存只是带版本的近端副本，
+ * 每次读取先比对版本，其他实例写过就从 Redis 重新读取，不会读到过期窗口；写库仍由写入的实例异步批量追加。
+ * 两个实例同时写同一会话时以后写入者的窗口为准（与 JdbcChatMemoryRepository 整段保存的语义相同）。
+ * 关闭 shared 时热窗口只在本进程，必须单实例部署或按会话粘性路由。
+ * <p>
+ * 待写队列最多 maxPending 条，队满时由保存消息的请求线程同步刷库，数据库跟不上时请求变慢而不是内存无限增长。
+ */
+@Slf4j
+public class TieredChatMemoryRepository implements ChatMemoryRepository, DisposableBean {
+
+    private static final String INSERT_SQL = "INSERT INTO SPRING_AI_CHAT_MEMORY (conversation_id, content, type, \"timestamp\") VALUES (?, ?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM SPRING_AI_CHAT_MEMORY WHERE conversation_id = ?";
+    private static final String LOAD_RECENT_SQL = "SELECT content, type FROM (SELECT content, type, \"timestamp\" FROM SPRING_AI_CHAT_MEMORY " +
+            "WHERE conversation_id = ? ORDER BY \"timestamp\" DESC LIMIT ?) recent ORDER BY \"timestamp\"";
+    private static final String TRIM_SQL = "DELETE FROM SPRING_AI_CHAT_MEMORY WHERE conversation_id = ? AND \"timestamp\" < " +
+            "(SELECT MIN(\"timestamp\") FROM (SELECT \"timestamp\" FROM SPRING_AI_CHAT_MEMORY " +
+            "WHERE conversation_id = ? ORDER BY \"timestamp\" DESC LIMIT ?) recent)";
+    private static final int CONVERSATION_LOCK_STRIPES = 64;
+
+    private final ChatMemoryRepository delegate;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ChatMemoryProperties properties;
+    private final Cache<String, Window> cache;
+    private final BlockingDeque<PendingRow> pending = new LinkedBlockingDeque<>();
+    // 窗口滑动过的会话及其窗口长度，刷库后按窗口长度删除更早的记录
+    private final Map<String, Integer> pendingTrims = new ConcurrentHashMap<>();
+    private final Lock[] conversationLocks = new Lock[CONVERSATION_LOCK_STRIPES];
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicLong lastTimestamp = new AtomicLong();
+    private final ScheduledExecutorService flusher;
+
+    public TieredChatMemoryRepository(ChatMemoryRepository delegate, JdbcTemplate jdbcTemplate,
+                                      TransactionTemplate transactionTemplate, StringRedisTemplate stringRedisTemplate,
+                                      ChatMemoryProperties properties) {
+        this.delegate = delegate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumConversations())
+                .expireAfterAccess(properties.getIdleTtl())
+                .build();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("chat-memory-flush-");
+        threadFactory.setDaemon(true);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        long interval = properties.getFlushInterval().toMillis();
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        Arrays.setAll(conversationLocks, i -> new ReentrantLock());
+    }
+
+    @Override
+    public List<String> findConversationIds() {
+        flush();
+        return delegate.findConversationIds();
+    }
+
+    @Override
+    public List<Message> findByConversationId(String conversationId) {
+        if (!properties.isShared()) {
+            Window cached = cache.getIfPresent(conversationId);
+            if (cached != null) {
+                return cached.messages();
+            }
+        }
+        Lock lock = conversationLock(conversationId);
+        lock.lock();
+        try {
+            return current(conversationId).messages();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void saveAll(String conversationId, List<Message> messages) {
+        Lock lock = conversationLock(conversationId);
+        lock.lock();
+        try {
+            Window current = current(conversationId);
+            int appendedFrom = appendedFrom(current.messages(), messages);
+            if (appendedFrom >= 0) {
+                // 先腾出队列空间再改动任何状态，刷库失败时本次保存整体失败
+                reserve(messages.size() - appendedFrom);
+            }
+            long version = current.version();
+            if (properties.isShared()) {
+                version = publish(conversationId, current.version(), messages, appendedFrom);
+                if (appendedFrom >= 0 && version > 0 && version != current.version() + 1) {
+                    // 读取之后其他实例写过这个会话，追加的基准已经过期，以本次窗口整段覆盖
+                    appendedFrom = -1;
+                    version = publish(conversationId, current.version(), messages, -1);
+                }
+            }
+            if (appendedFrom < 0) {
+                rewrite(conversationId, messages);
+            } else {
+                for (Message message : messages.subList(appendedFrom, messages.size())) {
+                    pending.add(new PendingRow(conversationId, message.getText(), message.getMessageType().name(), nextTimestamp()));
+                }
+                if (appendedFrom < current.messages().size()) {
+                    // 窗口头部有消息滑出，刷库后清理
+                    pendingTrims.put(conversationId, messages.size());
+                }
+            }
+            cache.put(conversationId, new Window(version, List.copyOf(messages)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteByConversationId(String conversationId) {
+        Lock lock = conversationLock(conversationId);
+        lock.lock();
+        try {
+            cache.invalidate(conversationId);
+            if (properties.isShared()) {
+                stringRedisTemplate.delete(List.of(windowKey(conversationId), versionKey(conversationId)));
+            }
+            flushLock.lock();
+            try {
+                pending.removeIf(row -> row.conversationId().equals(conversationId));
+                pendingTrims.remove(conversationId);
+                delegate.deleteByConversationId(conversationId);
+            } finally {
+                flushLock.unlock();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 把排队中的消息全部写库，再删除窗口滑动过的会话中窗口之外的旧消息
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<PendingRow> batch = new ArrayList<>(properties.getBatchSize());
+            while (pending.drainTo(batch, properties.getBatchSize()) > 0) {
+                try {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, row) -> {
+                        ps.setString(1, row.conversationId());
+                        ps.setString(2, row.content());
+                        ps.setString(3, row.type());
+                        ps.setTimestamp(4, row.timestamp());
+                    });
+                } catch (RuntimeException e) {
+                    // 放回队首，保持写入顺序，等下一轮重试
+                    for (int i = batch.size() - 1; i >= 0; i--) {
+                        pending.addFirst(batch.get(i));
+                    }
+                    throw e;
+                }
+                batch.clear();
+            }
+            trimWindows();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+        log.info("对话记忆已全部写库");
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("对话记忆写库失败，待写消息数 {}", pending.size(), e);
+        }
+    }
+
+    /**
+     * 只保留每个窗口滑动过的会话最近的窗口长度条记录
+     * 窗口中还没刷库的消息不在库里，按窗口长度保留只会多留，不会删掉窗口内的消息
+     */
+    private void trimWindows() {
+        for (String conversationId : List.copyOf(pendingTrims.keySet())) {
+            Integer windowSize = pendingTrims.remove(conversationId);
+            if (windowSize == null) {
+                continue;
+            }
+            try {
+                int trimmed = jdbcTemplate.update(TRIM_SQL, conversationId, conversationId, windowSize);
+                log.debug("对话记忆清理窗口外消息 {} 条数 {}", conversationId, trimmed);
+            } catch (RuntimeException e) {
+                pendingTrims.putIfAbsent(conversationId, windowSize);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 调用方持有该会话的锁，数据库和 Redis 操作不在 Caffeine 的 compute 里执行
+     * 共享模式下本地副本的版本与 Redis 一致才直接返回，否则读 Redis 中的窗口，Redis 中也没有时从库里加载并发布
+     */
+    private Window current(String conversationId) {
+        Window cached = cache.getIfPresent(conversationId);
+        if (!properties.isShared()) {
+            if (cached != null) {
+                return cached;
+            }
+            Window loaded = new Window(0, loadRecent(conversationId));
+            cache.put(conversationId, loaded);
+            return loaded;
+        }
+        Window window;
+        try {
+            String version = stringRedisTemplate.opsForValue().get(versionKey(conversationId));
+            if (cached != null && version != null && Long.parseLong(version) == cached.version()) {
+                return cached;
+            }
+            window = version != null ? readShared(conversationId) : null;
+            if (window == null) {
+                List<Message> loaded = loadRecent(conversationId);
+                window = new Window(publish(conversationId, 0, loaded, -1), loaded);
+            }
+        } catch (RuntimeException e) {
+            // Redis 不可用时退化为本进程缓存，版本记为 -1，恢复后下一次读取重新比对
+            log.warn("对话记忆读取 Redis 失败，使用本地窗口 {} {}", conversationId, e.toString());
+            window = cached != null ? cached : new Window(-1, loadRecent(conversationId));
+        }
+        cache.put(conversationId, window);
+        return window;
+    }
+
+    /**
+     * 在同一个事务里读出窗口和版本，键已过期时返回 null
+     */
+    private Window readShared(String conversationId) {
+        List<Object> results = stringRedisTemplate.execute(new SessionCallback<List<Object>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public List<Object> execute(RedisOperations operations) throws DataAccessException {
+                operations.multi();
+                operations.opsForList().range(windowKey(conversationId), 0, -1);
+                operations.opsForValue().get(versionKey(conversationId));
+                return operations.exec();
+            }
+        });
+        if (results == null || results.size() < 2 || results.get(1) == null) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        List<String> entries = (List<String>) results.get(0);
+        List<Message> messages = entries.stream().map(TieredChatMemoryRepository::decode).toList();
+        return new Window(Long.parseLong((String) results.get(1)), messages);
+    }
+
+    /**
+     * 把窗口写入 Redis 并递增版本号，appendedFrom 小于 0 时整段覆盖，否则追加后按窗口长度截断
+     *
+     * @return 写入后的版本号，等于 expectedVersion + 1 说明期间没有其他实例写过；Redis 不可用时返回 -1
+     */
+    private long publish(String conversationId, long expectedVersion, List<Message> messages, int appendedFrom) {
+        String windowKey = windowKey(conversationId);
+        String versionKey = versionKey(conversationId);
+        List<String> entries = (appendedFrom < 0 ? messages : messages.subList(appendedFrom, messages.size())).stream()
+                .map(TieredChatMemoryRepository::encode)
+                .toList();
+        try {
+            List<Object> results = stringRedisTemplate.execute(new SessionCallback<List<Object>>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public List<Object> execute(RedisOperations operations) throws DataAccessException {
+                    operations.multi();
+                    if (appendedFrom < 0) {
+                        operations.delete(windowKey);
+                    }
+                    if (!entries.isEmpty()) {
+                        operations.opsForList().rightPushAll(windowKey, entries);
+                    }
+                    operations.opsForList().trim(windowKey, -Math.max(1, messages.size()), -1);
+                    operations.opsForValue().increment(versionKey);
+                    operations.expire(windowKey, properties.getIdleTtl());
+                    operations.expire(versionKey, properties.getIdleTtl());
+                    return operations.exec();
+                }
+            });
+            if (results == null || results.isEmpty()) {
+                return -1;
+            }
+            // increment 是倒数第三条命令
+            return ((Number) results.get(results.size() - 3)).longValue();
+        } catch (RuntimeException e) {
+            log.warn("对话记忆写入 Redis 失败，其他实例暂时看不到本次更新 {} 期望版本 {} {}", conversationId, expectedVersion, e.toString());
+            return -1;
+        }
+    }
+
+    /**
+     * 队列放不下本次新增的消息时，在调用线程上同步刷库
+     */
+    private void reserve(int rows) {
+        if (pending.size() + rows > properties.getMaxPending()) {
+            log.debug("对话记忆待写队列已满 {}，同步刷库", pending.size());
+            flush();
+        }
+    }
+
+    private String windowKey(String conversationId) {
+        return TriggerRedisConstant.CHAT_MEMORY_KEY_PREFIX + conversationId;
+    }
+
+    private String versionKey(String conversationId) {
+        return TriggerRedisConstant.CHAT_MEMORY_VERSION_KEY_PREFIX + conversationId;
+    }
+
+    private Lock conversationLock(String conversationId) {
+        return conversationLocks[Math.floorMod(conversationId.hashCode(), CONVERSATION_LOCK_STRIPES)];
+    }
+
+    /**
+     * 冷加载：先把该会话排队中的消息写库，再读最近 maxMessages 条
+     */
+    private List<Message> loadRecent(String conversationId) {
+        if (pending.stream().anyMatch(row -> row.conversationId().equals(conversationId))) {
+            flush();
+        }
+        return List.copyOf(jdbcTemplate.query(LOAD_RECENT_SQL,
+                (rs, rowNum) -> toMessage(rs.getString("content"), MessageType.valueOf(rs.getString("type"))),
+                conversationId, properties.getMaxMessages()));
+    }
+
+    /**
+     * 整段重写：丢弃该会话排队中的消息，删除库中全部记录（包括窗口之外的旧消息）后按新顺序写入
+     */
+    private void rewrite(String conversationId, List<Message> messages) {
+        flushLock.lock();
+        try {
+            pending.removeIf(row -> row.conversationId().equals(conversationId));
+            pendingTrims.remove(conversationId);
+            List<PendingRow> rows = messages.stream()
+                    .map(message -> new PendingRow(conversationId, message.getText(), message.getMessageType().name(), nextTimestamp()))
+                    .toList();
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(DELETE_SQL, conversationId);
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows, properties.getBatchSize(), (ps, row) -> {
+                    ps.setString(1, row.conversationId());
+                    ps.setString(2, row.content());
+                    ps.setString(3, row.type());
+                    ps.setTimestamp(4, row.timestamp());
+                });
+            });
+            log.debug("对话记忆整段重写 {} 条数 {}", conversationId, rows.size());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 新窗口是旧窗口的后缀加上新增消息时，返回新增消息在新窗口中的起始下标，否则返回 -1
+     * 比较的是对象引用：MessageWindowChatMemory 保存的正是从这里读出的同一批消息对象
+     */
+    static int appendedFrom(List<Message> cached, List<Message> messages) {
+        if (cached.isEmpty()) {
+            return 0;
+        }
+        if (messages.isEmpty()) {
+            return -1;
+        }
+        Message first = messages.get(0);
+        for (int offset = 0; offset < cached.size(); offset++) {
+            if (cached.get(offset) != first) {
+                continue;
+            }
+            int kept = cached.size() - offset;
+            if (kept > messages.size()) {
+                return -1;
+            }
+            for (int i = 1; i < kept; i++) {
+                if (cached.get(offset + i) != messages.get(i)) {
+                    return -1;
+                }
+            }
+            return kept;
+        }
+        return -1;
+    }
+
+    /**
+     * 时间戳决定会话内消息顺序，保证严格递增
+     */
+    private Timestamp nextTimestamp() {
+        return new Timestamp(lastTimestamp.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis())));
+    }
+
+    /**
+     * Redis 中每条消息存为 "类型|正文"，与库表一样只保存类型和正文
+     */
+    private static String encode(Message message) {
+        return message.getMessageType().name() + "|" + Objects.toString(message.getText(), "");
+    }
+
+    private static Message decode(String entry) {
+        int separator = entry.indexOf('|');
+        return toMessage(entry.substring(separator + 1), MessageType.valueOf(entry.substring(0, separator)));
+    }
+
+    private static Message toMessage(String content, MessageType type) {
+        return switch (type) {
+            case USER -> new UserMessage(content);
+            case ASSISTANT -> new AssistantMessage(content);
+            case SYSTEM -> new SystemMessage(content);
+            case TOOL -> new ToolResponseMessage(List.of());
+        };
+    }
+
+    /**
+     * 本地窗口副本和它对应的 Redis 版本号，非共享模式下版本号恒为 0
+     */
+    private record Window(long version, List<Message> messages) {
+    }
+
+    private record PendingRow(String conversationId, String content, String type, Timestamp timestamp) {
+    }
+}
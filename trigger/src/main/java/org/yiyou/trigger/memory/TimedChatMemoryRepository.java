@@ -0,0 +1,54 @@
+package org.yiyou.trigger.memory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.List;
+
+/**
+ * 对话记忆读写计时：chat.memory{operation=load|save|delete}，repository 标签区分分层存储和直连数据库
+ */
+public class TimedChatMemoryRepository implements ChatMemoryRepository {
+
+    private final ChatMemoryRepository delegate;
+    private final Timer loadTimer;
+    private final Timer saveTimer;
+    private final Timer deleteTimer;
+
+    public TimedChatMemoryRepository(ChatMemoryRepository delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        String repository = delegate instanceof TieredChatMemoryRepository ? "tiered" : "jdbc";
+        this.loadTimer = timer(meterRegistry, "load", repository);
+        this.saveTimer = timer(meterRegistry, "save", repository);
+        this.deleteTimer = timer(meterRegistry, "delete", repository);
+    }
+
+    @Override
+    public List<String> findConversationIds() {
+        return delegate.findConversationIds();
+    }
+
+    @Override
+    public List<Message> findByConversationId(String conversationId) {
+        return loadTimer.record(() -> delegate.findByConversationId(conversationId));
+    }
+
+    @Override
+    public void saveAll(String conversationId, List<Message> messages) {
+        saveTimer.record(() -> delegate.saveAll(conversationId, messages));
+    }
+
+    @Override
+    public void deleteByConversationId(String conversationId) {
+        deleteTimer.record(() -> delegate.deleteByConversationId(conversationId));
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String operation, String repository) {
+        return Timer.builder("chat.memory")
+                .tag("operation", operation)
+                .tag("repository", repository)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,128 @@
+package org.yiyou.trigger.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 对话接口指标：首 token 时间、总耗时、输出速度，按接口和模型打标签
+ * <ul>
+ *     <li>chat.ttft：从订阅到收到第一个非空文本片段</li>
+ *     <li>chat.latency：从订阅到流结束（同步接口为整个调用），outcome 区分正常结束、出错和客户端取消</li>
+ *     <li>chat.tokens.per.second：首 token 之后的输出速度，没有用量信息时按片段数估算</li>
+ * </ul>
+ */
+@Component
+public class ChatMetrics {
+
+    private static final String UNKNOWN_MODEL = "unknown";
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+
+    private final MeterRegistry meterRegistry;
+
+    public ChatMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param endpoint 接口名，取值固定，避免标签基数膨胀
+     */
+    public Flux<ChatResponse> instrument(String endpoint, Flux<ChatResponse> responses) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicLong firstToken = new AtomicLong(NOT_STARTED);
+            AtomicReference<String> model = new AtomicReference<>(UNKNOWN_MODEL);
+            AtomicInteger chunks = new AtomicInteger();
+            AtomicInteger completionTokens = new AtomicInteger();
+
+            return responses
+                    .doOnNext(response -> {
+                        ChatResponseMetadata metadata = response.getMetadata();
+                        if (metadata != null) {
+                            if (StringUtils.hasText(metadata.getModel())) {
+                                model.set(metadata.getModel());
+                            }
+                            if (metadata.getUsage() != null && metadata.getUsage().getCompletionTokens() != null && metadata.getUsage().getCompletionTokens() > 0) {
+                                completionTokens.set(metadata.getUsage().getCompletionTokens());
+                            }
+                        }
+                        if (response.getResult() != null && StringUtils.hasLength(response.getResult().getOutput().getText())) {
+                            chunks.incrementAndGet();
+                            long now = System.nanoTime();
+                            if (firstToken.compareAndSet(NOT_STARTED, now)) {
+                                Timer.builder("chat.ttft")
+                                        .tag("endpoint", endpoint)
+                                        .tag("model", model.get())
+                                        .register(meterRegistry)
+                                        .record(now - start, TimeUnit.NANOSECONDS);
+                            }
+                        }
+                    })
+                    .doFinally(signal -> {
+                        long end = System.nanoTime();
+                        Timer.builder("chat.latency")
+                                .tag("endpoint", endpoint)
+                                .tag("model", model.get())
+                                .tag("outcome", outcome(signal))
+                                .register(meterRegistry)
+                                .record(end - start, TimeUnit.NANOSECONDS);
+                        long generating = end - firstToken.get();
+                        if (signal == SignalType.ON_COMPLETE && firstToken.get() != NOT_STARTED && generating > 0) {
+                            int tokens = completionTokens.get() > 0 ? completionTokens.get() : chunks.get();
+                            DistributionSummary.builder("chat.tokens.per.second")
+                                    .tag("endpoint", endpoint)
+                                    .tag("model", model.get())
+                                    .register(meterRegistry)
+                                    .record(tokens * 1e9 / generating);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * 同步接口只记录 chat.latency，模型取自响应元数据
+     *
+     * @param endpoint 接口名，取值固定，避免标签基数膨胀
+     */
+    public ChatResponse call(String endpoint, Supplier<ChatResponse> call) {
+        long start = System.nanoTime();
+        String model = UNKNOWN_MODEL;
+        String outcome = "error";
+        try {
+            ChatResponse response = call.get();
+            if (response != null && response.getMetadata() != null && StringUtils.hasText(response.getMetadata().getModel())) {
+                model = response.getMetadata().getModel();
+            }
+            outcome = "success";
+            return response;
+        } finally {
+            Timer.builder("chat.latency")
+                    .tag("endpoint", endpoint)
+                    .tag("model", model)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static String outcome(SignalType signal) {
+        return switch (signal) {
+            case ON_COMPLETE -> "success";
+            case ON_ERROR -> "error";
+            case CANCEL -> "cancelled";
+            default -> signal.name().toLowerCase();
+        };
+    }
+}
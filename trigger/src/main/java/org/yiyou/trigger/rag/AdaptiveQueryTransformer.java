@@ -0,0 +1,91 @@
+package org.yiyou.trigger.rag;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.preretrieval.query.transformation.QueryTransformer;
+import org.springframework.util.Assert;
+import org.yiyou.trigger.config.QueryTransformationProperties;
+
+import java.util.Locale;
+
+/**
+ * 按需执行的检索前查询转换，每个查询最多一次模型调用，结果按规范化后的查询缓存
+ * <ul>
+ *     <li>中文短查询：原样使用</li>
+ *     <li>中文长查询：只改写</li>
+ *     <li>非中文短查询：只翻译</li>
+ *     <li>非中文长查询：改写和翻译合并为一次调用</li>
+ * </ul>
+ */
+@Slf4j
+public class AdaptiveQueryTransformer implements QueryTransformer {
+
+    private final QueryTransformer rewriteTransformer;
+    private final QueryTransformer translationTransformer;
+    private final QueryTransformer rewriteAndTranslateTransformer;
+    private final QueryTransformationProperties properties;
+    private final Cache<String, String> cache;
+
+    public AdaptiveQueryTransformer(QueryTransformer rewriteTransformer,
+                                    QueryTransformer translationTransformer,
+                                    QueryTransformer rewriteAndTranslateTransformer,
+                                    QueryTransformationProperties properties) {
+        Assert.notNull(rewriteTransformer, "rewriteTransformer 不能为空");
+        Assert.notNull(translationTransformer, "translationTransformer 不能为空");
+        Assert.notNull(rewriteAndTranslateTransformer, "rewriteAndTranslateTransformer 不能为空");
+        this.rewriteTransformer = rewriteTransformer;
+        this.translationTransformer = translationTransformer;
+        this.rewriteAndTranslateTransformer = rewriteAndTranslateTransformer;
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheMaximumSize())
+                .expireAfterWrite(properties.getCacheTtl())
+                .build();
+    }
+
+    @Override
+    public Query transform(Query query) {
+        String normalized = query.text().strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        // 模型调用不放进 Caffeine 的 compute，避免慢调用阻塞同一哈希桶的其他键；并发未命中时各自调用一次
+        String text = cache.getIfPresent(normalized);
+        if (text == null) {
+            text = select(query).transform(query).text();
+            cache.put(normalized, text);
+        }
+        log.debug("查询转换 {} -> {}", query.text(), text);
+        return query.mutate().text(text).build();
+    }
+
+    private QueryTransformer select(Query query) {
+        boolean chinese = isChinese(query.text());
+        boolean keywords = HanLPTokenizer.tokenize(query.text()).size() <= properties.getShortQueryMaxTokens();
+        if (chinese && keywords) {
+            return q -> q;
+        }
+        if (chinese) {
+            return rewriteTransformer;
+        }
+        return keywords ? translationTransformer : rewriteAndTranslateTransformer;
+    }
+
+    /**
+     * 统计文字字符中汉字的比例，标点、数字和空白不计入
+     */
+    boolean isChinese(String text) {
+        int letters = 0;
+        int han = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            if (Character.isLetter(codePoint)) {
+                letters++;
+                if (Character.UnicodeScript.of(codePoint) == Character.UnicodeScript.HAN) {
+                    han++;
+                }
+            }
+            i += Character.charCount(codePoint);
+        }
+        return letters == 0 || (double) han / letters >= properties.getChineseRatio();
+    }
+}
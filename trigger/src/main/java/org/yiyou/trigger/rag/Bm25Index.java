@@ -0,0 +1,306 @@
+package org.yiyou.trigger.rag;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.document.Document;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.yiyou.trigger.config.HybridRetrievalProperties;
+import org.yiyou.trigger.service.RagIngestionService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 基于 HanLP 分词的 BM25 倒排索引，与向量表中的切片一一对应（按文档 ID）
+ * 按知识库标签分区，指定标签的检索只扫描该标签的倒排表
+ * 只保存词项统计不保存正文，检索结果是切片 ID 和得分，正文由 {@link ChunkRepository} 补全
+ * <p>
+ * 启动时由 {@link Bm25IndexLoader} 从向量表快照重建，重建期间删除优先：被删除的 ID 记为墓碑，
+ * 快照里读到墓碑或已由入库写入的 ID 时跳过，旧快照不会把已删除的切片加回来。
+ * 重建完成前关键词检索只覆盖已写入的部分，可通过 rag.bm25.ready 指标观察。
+ */
+@Component
+@EnableConfigurationProperties(HybridRetrievalProperties.class)
+public class Bm25Index {
+
+    private final HybridRetrievalProperties properties;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 标签 -> 分区，没有标签的历史切片放在空字符串分区
+     */
+    private final Map<String, Partition> partitions = new HashMap<>();
+
+    /**
+     * 文档 ID -> 所在分区的标签
+     */
+    private final Map<String, String> documentTags = new HashMap<>();
+
+    /**
+     * 重建期间删除的文档 ID，不为 null 表示正在重建
+     */
+    private Set<String> tombstones;
+
+    private volatile boolean ready;
+
+    private final Timer searchTimer;
+
+    public Bm25Index(HybridRetrievalProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.searchTimer = Timer.builder("rag.retrieval").tag("source", "bm25").register(meterRegistry);
+        // 不从向量表重建时索引只包含本进程写入的切片，视为就绪
+        this.ready = !properties.isBootstrapEnabled();
+        Gauge.builder("rag.bm25.ready", this, index -> index.ready ? 1 : 0)
+                .description("BM25 索引是否已从向量表重建完成，未完成时混合检索的关键词部分不完整")
+                .register(meterRegistry);
+        Gauge.builder("rag.bm25.documents", this, Bm25Index::size).register(meterRegistry);
+    }
+
+    /**
+     * 开始从快照重建，之后的删除记为墓碑
+     */
+    public void beginBootstrap() {
+        lock.writeLock().lock();
+        try {
+            tombstones = new HashSet<>();
+            ready = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 写入快照中的一批切片，跳过重建期间已删除或已由入库写入的切片
+     */
+    public void addFromSnapshot(Collection<Document> chunks) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        List<IndexedDocument> indexed = index(chunks);
+        lock.writeLock().lock();
+        try {
+            for (IndexedDocument document : indexed) {
+                if ((tombstones != null && tombstones.contains(document.id())) || documentTags.containsKey(document.id())) {
+                    continue;
+                }
+                partitions.computeIfAbsent(document.ragTag(), k -> new Partition()).add(document);
+                documentTags.put(document.id(), document.ragTag());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 结束重建，清除墓碑
+     *
+     * @param completed 快照是否完整读完，失败时不标记为就绪
+     */
+    public void endBootstrap(boolean completed) {
+        lock.writeLock().lock();
+        try {
+            tombstones = null;
+            ready = completed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void add(Collection<Document> chunks) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        List<IndexedDocument> indexed = index(chunks);
+        lock.writeLock().lock();
+        try {
+            for (IndexedDocument document : indexed) {
+                if (tombstones != null) {
+                    // 删除后又重新写入，以这次写入为准
+                    tombstones.remove(document.id());
+                }
+                removeUnlocked(document.id());
+                partitions.computeIfAbsent(document.ragTag(), k -> new Partition()).add(document);
+                documentTags.put(document.id(), document.ragTag());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Collection<String> ids) {
+        lock.writeLock().lock();
+        try {
+            ids.forEach(this::removeUnlocked);
+            if (tombstones != null) {
+                tombstones.addAll(ids);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentTags.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按 BM25 得分取前 topK 个切片，按得分从高到低排列
+     *
+     * @param ragTag 为空时检索全部分区
+     */
+    public List<Hit> search(String query, String ragTag, int topK) {
+        if (!properties.isEnabled()) {
+            return List.of();
+        }
+        return searchTimer.record(() -> doSearch(query, ragTag, topK));
+    }
+
+    private List<Hit> doSearch(String query, String ragTag, int topK) {
+        Set<String> terms = new LinkedHashSet<>(HanLPTokenizer.tokenize(query));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Collection<Partition> targets;
+            if (ragTag == null || ragTag.isEmpty()) {
+                targets = partitions.values();
+            } else {
+                Partition partition = partitions.get(ragTag);
+                targets = partition == null ? List.of() : List.of(partition);
+            }
+
+            PriorityQueue<Hit> top = new PriorityQueue<>(Comparator.comparingDouble(Hit::score));
+            for (Partition partition : targets) {
+                partition.score(terms).forEach((id, score) -> {
+                    top.offer(new Hit(id, score));
+                    if (top.size() > topK) {
+                        top.poll();
+                    }
+                });
+            }
+            return top.stream()
+                    .sorted(Comparator.comparingDouble(Hit::score).reversed())
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 分词在锁外完成
+     */
+    private static List<IndexedDocument> index(Collection<Document> chunks) {
+        List<IndexedDocument> indexed = new ArrayList<>(chunks.size());
+        for (Document chunk : chunks) {
+            Map<String, Integer> termFrequency = new HashMap<>();
+            List<String> tokens = HanLPTokenizer.tokenize(chunk.getText());
+            tokens.forEach(token -> termFrequency.merge(token, 1, Integer::sum));
+            String ragTag = Objects.toString(chunk.getMetadata().get(RagIngestionService.RAG_TAG_METADATA_KEY), "");
+            indexed.add(new IndexedDocument(chunk.getId(), ragTag, tokens.size(), termFrequency));
+        }
+        return indexed;
+    }
+
+    private void removeUnlocked(String id) {
+        String ragTag = documentTags.remove(id);
+        if (ragTag == null) {
+            return;
+        }
+        Partition partition = partitions.get(ragTag);
+        partition.remove(id);
+        if (partition.documents.isEmpty()) {
+            partitions.remove(ragTag);
+        }
+    }
+
+    /**
+     * 单个标签的倒排表，调用方负责加锁
+     */
+    private final class Partition {
+
+        /**
+         * 文档 ID -> 已索引文档
+         */
+        private final Map<String, IndexedDocument> documents = new HashMap<>();
+
+        /**
+         * 词项 -> (文档 ID -> 词频)
+         */
+        private final Map<String, Map<String, Integer>> postings = new HashMap<>();
+
+        private long totalLength;
+
+        void add(IndexedDocument document) {
+            String id = document.id();
+            documents.put(id, document);
+            totalLength += document.length();
+            document.termFrequency().forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, k -> new HashMap<>()).put(id, frequency));
+        }
+
+        void remove(String id) {
+            IndexedDocument removed = documents.remove(id);
+            if (removed == null) {
+                return;
+            }
+            totalLength -= removed.length();
+            removed.termFrequency().keySet().forEach(term -> {
+                Map<String, Integer> posting = postings.get(term);
+                if (posting != null) {
+                    posting.remove(id);
+                    if (posting.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            });
+        }
+
+        Map<String, Double> score(Set<String> terms) {
+            Map<String, Double> scores = new HashMap<>();
+            if (documents.isEmpty()) {
+                return scores;
+            }
+            double averageLength = (double) totalLength / documents.size();
+            for (String term : terms) {
+                Map<String, Integer> posting = postings.get(term);
+                if (posting == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documents.size() - posting.size() + 0.5) / (posting.size() + 0.5));
+                posting.forEach((id, frequency) -> {
+                    int length = documents.get(id).length();
+                    double tf = frequency * (properties.getK1() + 1)
+                            / (frequency + properties.getK1() * (1 - properties.getB() + properties.getB() * length / averageLength));
+                    scores.merge(id, idf * tf, Double::sum);
+                });
+            }
+            return scores;
+        }
+    }
+
+    private record IndexedDocument(String id, String ragTag, int length, Map<String, Integer> termFrequency) {
+    }
+
+    public record Hit(String id, double score) {
+    }
+}
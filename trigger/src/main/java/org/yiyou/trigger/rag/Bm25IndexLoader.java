@@ -0,0 +1,89 @@
+package org.yiyou.trigger.rag;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.yiyou.trigger.config.HybridRetrievalProperties;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 倒排索引只在内存中，启动时从向量表读出全部切片，在阻塞调用 Scheduler 上后台重建
+ * PostgreSQL 驱动只有在事务内才按 fetchSize 分批拉取，否则整张表的结果集会先全部读进内存
+ * 读快照期间的入库和删除照常进行，由 {@link Bm25Index} 的墓碑保证删除优先
+ */
+@Slf4j
+@Component
+public class Bm25IndexLoader implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Bm25Index bm25Index;
+    private final HybridRetrievalProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Scheduler blockingScheduler;
+    private final String qualifiedTableName;
+
+    public Bm25IndexLoader(JdbcTemplate jdbcTemplate, Bm25Index bm25Index, HybridRetrievalProperties properties,
+                           PlatformTransactionManager transactionManager, Scheduler blockingScheduler,
+                           @Value("${spring.ai.vectorstore.pgvector.schema-name:public}") String schemaName,
+                           @Value("${spring.ai.vectorstore.pgvector.table-name:vector_store}") String tableName) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bm25Index = bm25Index;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.blockingScheduler = blockingScheduler;
+        this.qualifiedTableName = schemaName + "." + tableName;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.isEnabled() || !properties.isBootstrapEnabled()) {
+            return;
+        }
+        // 在返回之前进入重建状态，之后的删除都会记为墓碑
+        bm25Index.beginBootstrap();
+        blockingScheduler.schedule(this::load);
+    }
+
+    private void load() {
+        long start = System.currentTimeMillis();
+        String sql = "SELECT id, content, metadata FROM " + qualifiedTableName;
+        List<Document> batch = new ArrayList<>(BATCH_SIZE);
+        boolean completed = false;
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(sql);
+                statement.setFetchSize(BATCH_SIZE);
+                return statement;
+            }, resultSet -> {
+                batch.add(Document.builder()
+                        .id(resultSet.getString("id"))
+                        .text(resultSet.getString("content"))
+                        .metadata(JdbcChunkRepository.metadata(resultSet.getString("metadata")))
+                        .build());
+                if (batch.size() >= BATCH_SIZE) {
+                    bm25Index.addFromSnapshot(batch);
+                    batch.clear();
+                }
+            }));
+            bm25Index.addFromSnapshot(batch);
+            completed = true;
+            log.info("BM25 索引重建完成 文档数 {} 耗时 {}ms", bm25Index.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("BM25 索引重建失败，关键词检索只覆盖本次启动后写入的切片", e);
+        } finally {
+            bm25Index.endBootstrap(completed);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.yiyou.trigger.rag;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.yiyou.trigger.config.HybridRetrievalProperties;
+import org.yiyou.trigger.constant.TriggerRedisConstant;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 多实例部署时同步 BM25 索引：本实例入库、删除切片后通过 Redis 频道广播切片 ID，
+ * 其他实例收到后从向量表补读切片写入自己的索引，或直接删除
+ * <p>
+ * 消息在单线程上按到达顺序处理，同一实例先后发出的写入和删除不会乱序；
+ * 实例停机期间错过的消息在下次启动重建索引时补齐。
+ */
+@Slf4j
+@Component
+public class Bm25IndexSync implements InitializingBean, DisposableBean {
+
+    private static final String ADDED = "ADD";
+    private static final String REMOVED = "REMOVE";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Bm25Index bm25Index;
+    private final ChunkRepository chunkRepository;
+    private final HybridRetrievalProperties properties;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ExecutorService listenerExecutor;
+    private final RedisMessageListenerContainer container;
+
+    public Bm25IndexSync(StringRedisTemplate stringRedisTemplate, RedisConnectionFactory redisConnectionFactory,
+                         Bm25Index bm25Index, ChunkRepository chunkRepository, HybridRetrievalProperties properties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.bm25Index = bm25Index;
+        this.chunkRepository = chunkRepository;
+        this.properties = properties;
+        this.listenerExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("bm25-sync-"));
+        this.container = new RedisMessageListenerContainer();
+        this.container.setConnectionFactory(redisConnectionFactory);
+        this.container.setTaskExecutor(listenerExecutor);
+        this.container.addMessageListener(this::onMessage, new ChannelTopic(TriggerRedisConstant.BM25_SYNC_CHANNEL));
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled()) {
+            container.afterPropertiesSet();
+            container.start();
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        container.destroy();
+        listenerExecutor.shutdownNow();
+    }
+
+    /**
+     * 本实例已写入索引的切片
+     */
+    public void published(Collection<String> ids) {
+        publish(ADDED, ids);
+    }
+
+    /**
+     * 本实例已从索引删除的切片
+     */
+    public void unpublished(Collection<String> ids) {
+        publish(REMOVED, ids);
+    }
+
+    private void publish(String action, Collection<String> ids) {
+        if (!enabled() || ids.isEmpty()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(TriggerRedisConstant.BM25_SYNC_CHANNEL, instanceId + "|" + action + "|" + String.join(",", ids));
+        } catch (RuntimeException e) {
+            // 广播失败不影响本实例入库，其他实例在下次重建时补齐
+            log.warn("BM25 索引变更广播失败 {} 切片数 {} {}", action, ids.size(), e.toString());
+        }
+    }
+
+    private void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length < 3 || instanceId.equals(parts[0]) || parts[2].isEmpty()) {
+            return;
+        }
+        List<String> ids = Arrays.asList(parts[2].split(","));
+        try {
+            if (ADDED.equals(parts[1])) {
+                bm25Index.add(chunkRepository.findByIds(ids));
+            } else if (REMOVED.equals(parts[1])) {
+                bm25Index.remove(ids);
+            }
+            log.debug("BM25 索引同步 {} 切片数 {}", parts[1], ids.size());
+        } catch (RuntimeException e) {
+            log.warn("BM25 索引同步失败 {} 切片数 {} {}", parts[1], ids.size(), e.toString());
+        }
+    }
+
+    private boolean enabled() {
+        return properties.isEnabled() && properties.isSyncEnabled();
+    }
+}
@@ -0,0 +1,77 @@
+package org.yiyou.trigger.rag;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
+import org.springframework.ai.rag.retrieval.search.VectorStoreDocumentRetriever;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.ai.vectorstore.filter.FilterExpressionTextParser;
+import org.springframework.util.Assert;
+import org.yiyou.trigger.cache.RetrievalCache;
+import org.yiyou.trigger.constant.ChatContextConstant;
+import org.yiyou.trigger.service.RagIngestionService;
+import org.yiyou.trigger.service.RagTagService;
+
+import java.util.List;
+
+/**
+ * 与 VectorStoreDocumentRetriever 行为一致，检索结果经过 RetrievalCache
+ * 过滤条件可通过请求上下文 VectorStoreDocumentRetriever.FILTER_EXPRESSION 按请求传入
+ * 上下文中带有知识库标签（ChatContextConstant.RAG_TAG）时只检索该标签下的切片
+ */
+public class CachingDocumentRetriever implements DocumentRetriever {
+
+    private final RetrievalCache retrievalCache;
+    private final double similarityThreshold;
+    private final int topK;
+
+    public CachingDocumentRetriever(RetrievalCache retrievalCache, double similarityThreshold, int topK) {
+        Assert.notNull(retrievalCache, "retrievalCache 不能为空");
+        this.retrievalCache = retrievalCache;
+        this.similarityThreshold = similarityThreshold;
+        this.topK = topK;
+    }
+
+    @Override
+    public List<Document> retrieve(Query query) {
+        SearchRequest.Builder request = SearchRequest.builder()
+                .query(query.text())
+                .similarityThreshold(similarityThreshold)
+                .topK(topK);
+        String ragTag = ragTag(query);
+        Filter.Expression filterExpression = filterExpression(query);
+        if (ragTag != null) {
+            // 入口已经校验过，这里再拦一次，标签会原样拼进 jsonpath
+            Assert.isTrue(RagTagService.isValid(ragTag), "非法的知识库标签");
+            Filter.Expression tagExpression = new FilterExpressionBuilder().eq(RagIngestionService.RAG_TAG_METADATA_KEY, ragTag).build();
+            filterExpression = filterExpression == null
+                    ? tagExpression
+                    : new Filter.Expression(Filter.ExpressionType.AND, tagExpression, filterExpression);
+        }
+        if (filterExpression != null) {
+            request.filterExpression(filterExpression);
+        }
+        return retrievalCache.search(request.build(), ragTag);
+    }
+
+    /**
+     * 请求上下文中的知识库标签，未指定时返回 null
+     */
+    static String ragTag(Query query) {
+        Object value = query.context().get(ChatContextConstant.RAG_TAG);
+        return value instanceof String tag && !tag.isBlank() ? tag : null;
+    }
+
+    private static Filter.Expression filterExpression(Query query) {
+        Object value = query.context().get(VectorStoreDocumentRetriever.FILTER_EXPRESSION);
+        if (value instanceof Filter.Expression expression) {
+            return expression;
+        }
+        if (value instanceof String text && !text.isBlank()) {
+            return new FilterExpressionTextParser().parse(text);
+        }
+        return null;
+    }
+}
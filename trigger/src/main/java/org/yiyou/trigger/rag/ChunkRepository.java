@@ -0,0 +1,18 @@
+package org.yiyou.trigger.rag;
+
+import org.springframework.ai.document.Document;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 按 ID 读取切片正文和元数据
+ * BM25 索引只保存词项统计，命中后从这里补全最终入选的切片
+ */
+public interface ChunkRepository {
+
+    /**
+     * @return 找到的切片，不保证顺序，不存在的 ID 直接忽略
+     */
+    List<Document> findByIds(Collection<String> ids);
+}
@@ -0,0 +1,130 @@
+package org.yiyou.trigger.rag;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.postretrieval.document.DocumentPostProcessor;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.yiyou.trigger.config.ContextPackingProperties;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 检索结果后处理：合并空白、剔除近似重复、按 MMR 挑选多样的文档，装满 token 预算即停止
+ * <p>
+ * 向量库返回的 Document 不带向量，文档间相似度用字符二元组的 Jaccard 系数估算，
+ * 相关性取检索阶段写入的 Document.score。
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(ContextPackingProperties.class)
+public class ContextPacker implements DocumentPostProcessor {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ContextPackingProperties properties;
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+
+    public ContextPacker(ContextPackingProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public List<Document> process(Query query, List<Document> documents) {
+        if (documents.isEmpty()) {
+            return documents;
+        }
+        List<Candidate> candidates = new ArrayList<>(documents.size());
+        double maxScore = 0;
+        for (Document document : documents) {
+            String text = WHITESPACE.matcher(Objects.requireNonNullElse(document.getText(), "")).replaceAll(" ").trim();
+            if (text.isEmpty()) {
+                continue;
+            }
+            double score = Objects.requireNonNullElse(document.getScore(), 0d);
+            maxScore = Math.max(maxScore, score);
+            candidates.add(new Candidate(document, text, bigrams(text), score));
+        }
+
+        List<Candidate> selected = new ArrayList<>();
+        int usedTokens = 0;
+        int duplicates = 0;
+        while (!candidates.isEmpty()) {
+            Candidate best = null;
+            double bestMmr = Double.NEGATIVE_INFINITY;
+            for (var iterator = candidates.iterator(); iterator.hasNext(); ) {
+                Candidate candidate = iterator.next();
+                double redundancy = 0;
+                for (Candidate chosen : selected) {
+                    redundancy = Math.max(redundancy, jaccard(candidate.bigrams(), chosen.bigrams()));
+                }
+                if (redundancy >= properties.getDuplicateThreshold()) {
+                    iterator.remove();
+                    duplicates++;
+                    continue;
+                }
+                double relevance = maxScore > 0 ? candidate.score() / maxScore : 0;
+                double mmr = properties.getMmrLambda() * relevance - (1 - properties.getMmrLambda()) * redundancy;
+                if (mmr > bestMmr) {
+                    bestMmr = mmr;
+                    best = candidate;
+                }
+            }
+            if (best == null) {
+                break;
+            }
+            int tokens = tokenCountEstimator.estimate(best.text());
+            // 至少保留一篇，避免单篇超预算时上下文为空
+            if (!selected.isEmpty() && usedTokens + tokens > properties.getTokenBudget()) {
+                break;
+            }
+            candidates.remove(best);
+            selected.add(best);
+            usedTokens += tokens;
+        }
+
+        log.debug("上下文装填 候选 {} 入选 {} 近似重复 {} token {}", documents.size(), selected.size(), duplicates, usedTokens);
+        return selected.stream()
+                .map(candidate -> Document.builder()
+                        .id(candidate.document().getId())
+                        .text(candidate.text())
+                        .metadata(candidate.document().getMetadata())
+                        .score(candidate.document().getScore())
+                        .build())
+                .toList();
+    }
+
+    private static Set<Integer> bigrams(String text) {
+        Set<Integer> bigrams = new HashSet<>(text.length() * 2);
+        for (int i = 0; i + 1 < text.length(); i++) {
+            bigrams.add(text.charAt(i) << 16 | text.charAt(i + 1));
+        }
+        if (bigrams.isEmpty()) {
+            bigrams.add((int) text.charAt(0));
+        }
+        return bigrams;
+    }
+
+    private static double jaccard(Set<Integer> a, Set<Integer> b) {
+        Set<Integer> smaller = a.size() <= b.size() ? a : b;
+        Set<Integer> larger = smaller == a ? b : a;
+        int intersection = 0;
+        for (Integer bigram : smaller) {
+            if (larger.contains(bigram)) {
+                intersection++;
+            }
+        }
+        return (double) intersection / (a.size() + b.size() - intersection);
+    }
+
+    private record Candidate(Document document, String text, Set<Integer> bigrams, double score) {
+    }
+}
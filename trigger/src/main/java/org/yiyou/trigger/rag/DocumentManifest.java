@@ -0,0 +1,66 @@
+package org.yiyou.trigger.rag;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.yiyou.trigger.constant.TriggerRedisConstant;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 源文档切片清单：每个源文档（标签 + 文件名）在 Redis Set 中记录当前已入库的切片 ID
+ * <p>
+ * 切片 ID 由文档 ID 和切片内容哈希确定，同一文档重新上传时，ID 已在清单里的切片内容没变可以保留，
+ * 不在清单里的是新增切片，清单里多出来的是已经删掉的内容。
+ */
+@Component
+public class DocumentManifest {
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public DocumentManifest(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    public static String documentId(String ragTag, String source) {
+        return UUID.nameUUIDFromBytes((ragTag + "\n" + source).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * 切片 ID，同时作为向量表主键，写入可以重复执行
+     */
+    public static String chunkId(String documentId, String text) {
+        return UUID.nameUUIDFromBytes((documentId + "\n" + ContentHash.sha256(text)).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    public Set<String> get(String documentId) {
+        Set<String> members = stringRedisTemplate.opsForSet().members(key(documentId));
+        return members == null ? new HashSet<>() : members;
+    }
+
+    /**
+     * 切片写入向量库后立即登记，入库中途失败时清单只会多不会少，下次上传时多出的切片会被清理
+     */
+    public void add(String documentId, Collection<String> chunkIds) {
+        if (!chunkIds.isEmpty()) {
+            stringRedisTemplate.opsForSet().add(key(documentId), chunkIds.toArray(new String[0]));
+        }
+    }
+
+    public void remove(String documentId, Collection<String> chunkIds) {
+        if (!chunkIds.isEmpty()) {
+            stringRedisTemplate.opsForSet().remove(key(documentId), chunkIds.toArray());
+        }
+    }
+
+    public void delete(String documentId) {
+        stringRedisTemplate.delete(key(documentId));
+    }
+
+    private static String key(String documentId) {
+        return TriggerRedisConstant.RAG_MANIFEST_KEY_PREFIX + documentId;
+    }
+}
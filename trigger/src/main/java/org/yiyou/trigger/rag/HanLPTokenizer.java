@@ -0,0 +1,52 @@
+package org.yiyou.trigger.rag;
+
+import com.hankcs.hanlp.HanLP;
+import com.hankcs.hanlp.dictionary.stopword.CoreStopWordDictionary;
+import com.hankcs.hanlp.seg.common.Term;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * HanLP 分词工具，入库和检索共用同一套词项规则
+ */
+public final class HanLPTokenizer {
+
+    private HanLPTokenizer() {
+    }
+
+    /**
+     * 分词并去掉空白、标点和停用词
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (StringUtils.isBlank(text)) {
+            return tokens;
+        }
+        for (Term term : HanLP.segment(text)) {
+            if (StringUtils.isNotBlank(term.word) && CoreStopWordDictionary.shouldInclude(term)) {
+                tokens.add(term.word.trim());
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 按词频取前 limit 个关键词，词频相同按首次出现顺序
+     */
+    public static List<String> keywords(String text, int limit) {
+        Map<String, Integer> frequency = new LinkedHashMap<>();
+        for (String token : tokenize(text)) {
+            frequency.merge(token, 1, Integer::sum);
+        }
+        return frequency.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,74 @@
+package org.yiyou.trigger.rag;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 向量检索与 BM25 关键词检索的混合检索，两路结果按倒数排名融合（RRF）
+ * 融合后的得分写入 Document.score；只由 BM25 命中的切片在融合截断后才按 ID 读取正文
+ */
+public class HybridDocumentRetriever implements DocumentRetriever {
+
+    private final DocumentRetriever vectorRetriever;
+    private final Bm25Index bm25Index;
+    private final ChunkRepository chunkRepository;
+    private final int topK;
+    private final int rrfK;
+
+    public HybridDocumentRetriever(DocumentRetriever vectorRetriever, Bm25Index bm25Index, ChunkRepository chunkRepository, int topK, int rrfK) {
+        Assert.notNull(vectorRetriever, "vectorRetriever 不能为空");
+        Assert.notNull(bm25Index, "bm25Index 不能为空");
+        Assert.notNull(chunkRepository, "chunkRepository 不能为空");
+        this.vectorRetriever = vectorRetriever;
+        this.bm25Index = bm25Index;
+        this.chunkRepository = chunkRepository;
+        this.topK = topK;
+        this.rrfK = rrfK;
+    }
+
+    @Override
+    public List<Document> retrieve(Query query) {
+        List<Document> vectorResults = vectorRetriever.retrieve(query);
+        List<Bm25Index.Hit> lexicalResults = bm25Index.search(query.text(), CachingDocumentRetriever.ragTag(query), topK);
+
+        Map<String, Document> byId = new LinkedHashMap<>();
+        Map<String, Double> fused = new LinkedHashMap<>();
+        for (int rank = 0; rank < vectorResults.size(); rank++) {
+            Document document = vectorResults.get(rank);
+            byId.putIfAbsent(document.getId(), document);
+            fused.merge(document.getId(), reciprocalRank(rank), Double::sum);
+        }
+        for (int rank = 0; rank < lexicalResults.size(); rank++) {
+            fused.merge(lexicalResults.get(rank).id(), reciprocalRank(rank), Double::sum);
+        }
+
+        List<Map.Entry<String, Double>> selected = fused.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                .limit(topK)
+                .toList();
+        List<String> missing = selected.stream().map(Map.Entry::getKey).filter(id -> !byId.containsKey(id)).toList();
+        chunkRepository.findByIds(missing).forEach(document -> byId.put(document.getId(), document));
+
+        List<Document> results = new ArrayList<>(selected.size());
+        for (Map.Entry<String, Double> entry : selected) {
+            Document document = byId.get(entry.getKey());
+            // 索引与向量表之间短暂不一致（切片刚被删除）时跳过
+            if (document != null) {
+                results.add(document.mutate().score(entry.getValue()).build());
+            }
+        }
+        return results;
+    }
+
+    private double reciprocalRank(int rank) {
+        return 1.0 / (rrfK + rank + 1);
+    }
+}
@@ -0,0 +1,69 @@
+package org.yiyou.trigger.rag;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Array;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 直接按主键查询 pgvector 向量表
+ */
+@Slf4j
+@Component
+public class JdbcChunkRepository implements ChunkRepository {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String qualifiedTableName;
+
+    public JdbcChunkRepository(JdbcTemplate jdbcTemplate,
+                               @Value("${spring.ai.vectorstore.pgvector.schema-name:public}") String schemaName,
+                               @Value("${spring.ai.vectorstore.pgvector.table-name:vector_store}") String tableName) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.qualifiedTableName = schemaName + "." + tableName;
+    }
+
+    @Override
+    public List<Document> findByIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String sql = "SELECT id, content, metadata FROM " + qualifiedTableName + " WHERE id = ANY(?)";
+        return jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(sql);
+            Array array = connection.createArrayOf("uuid", ids.toArray());
+            statement.setArray(1, array);
+            return statement;
+        }, (resultSet, rowNum) -> Document.builder()
+                .id(resultSet.getString("id"))
+                .text(resultSet.getString("content"))
+                .metadata(metadata(resultSet.getString("metadata")))
+                .build());
+    }
+
+    /**
+     * 解析 metadata 列的 JSON，解析失败时返回空元数据
+     */
+    static Map<String, Object> metadata(String json) {
+        if (json == null) {
+            return new HashMap<>();
+        }
+        try {
+            return OBJECT_MAPPER.readValue(json, new TypeReference<>() {
+            });
+        } catch (Exception e) {
+            log.debug("切片元数据解析失败 {}", json, e);
+            return new HashMap<>();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package org.yiyou.trigger.rag;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.ai.transformer.splitter.TextSplitter;
+import org.springframework.util.Assert;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 按 token 切分文本，切片之间保留重叠
+ * 以句子为最小单位累加，超长句子按字符硬切
+ */
+public class OverlappingTokenTextSplitter extends TextSplitter {
+
+    /**
+     * 在中英文句末标点和换行之后断句
+     */
+    private static final Pattern SENTENCE_BOUNDARY = Pattern.compile("(?<=[。！？；!?;\\n])");
+
+    private final TokenCountEstimator tokenCountEstimator;
+
+    private final int chunkSize;
+
+    private final int chunkOverlap;
+
+    private final int minChunkChars;
+
+    public OverlappingTokenTextSplitter(int chunkSize, int chunkOverlap, int minChunkChars) {
+        this(new JTokkitTokenCountEstimator(), chunkSize, chunkOverlap, minChunkChars);
+    }
+
+    public OverlappingTokenTextSplitter(TokenCountEstimator tokenCountEstimator, int chunkSize, int chunkOverlap, int minChunkChars) {
+        Assert.isTrue(chunkSize > 0, "chunkSize 必须大于 0");
+        Assert.isTrue(chunkOverlap >= 0 && chunkOverlap < chunkSize, "chunkOverlap 必须小于 chunkSize");
+        this.tokenCountEstimator = tokenCountEstimator;
+        this.chunkSize = chunkSize;
+        this.chunkOverlap = chunkOverlap;
+        this.minChunkChars = minChunkChars;
+    }
+
+    @Override
+    protected List<String> splitText(String text) {
+        if (StringUtils.isBlank(text)) {
+            return new ArrayList<>();
+        }
+        Session session = session();
+        List<String> chunks = session.append(text);
+        chunks.addAll(session.finish());
+        return chunks;
+    }
+
+    /**
+     * 流式切分：文本分段追加，切片窗口和重叠跨段保留，结果与一次性切分整段文本相同
+     * 例外是跨段累积超过 chunkSize 仍没有断句标点的文本：流式时在段尾强制断开，硬切位置与整段切分不同
+     */
+    public Session session() {
+        return new Session();
+    }
+
+    private List<Sentence> sentences(String text) {
+        List<Sentence> sentences = new ArrayList<>();
+        for (String raw : SENTENCE_BOUNDARY.split(text)) {
+            if (StringUtils.isBlank(raw)) {
+                continue;
+            }
+            int tokens = tokenCountEstimator.estimate(raw);
+            if (tokens <= chunkSize) {
+                sentences.add(new Sentence(raw, tokens));
+                continue;
+            }
+            // 超长句子按 token 比例估算字符数后硬切
+            int step = Math.max(1, (int) ((long) raw.length() * chunkSize / tokens));
+            for (int start = 0; start < raw.length(); start += step) {
+                String piece = raw.substring(start, Math.min(raw.length(), start + step));
+                sentences.add(new Sentence(piece, tokenCountEstimator.estimate(piece)));
+            }
+        }
+        return sentences;
+    }
+
+    /**
+     * 一次流式切分的状态，非线程安全
+     */
+    public final class Session {
+
+        private final Deque<Sentence> window = new ArrayDeque<>();
+        private int windowTokens;
+        // 窗口中尚未输出过的句子数，为 0 时说明窗口里只剩重叠部分
+        private int fresh;
+        // 上一段末尾没有断句标点的文本，和下一段拼接后再断句
+        private String pending = "";
+
+        private Session() {
+        }
+
+        /**
+         * 追加一段文本
+         *
+         * @return 已经确定的切片，末尾不完整的句子留到下一段
+         */
+        public List<String> append(String text) {
+            List<String> chunks = new ArrayList<>();
+            String combined = pending + text;
+            int end = lastBoundary(combined);
+            // 一直没有断句标点时不无限累积，超过一个切片的长度就当作完整句子处理
+            if (end < 0 && tokenCountEstimator.estimate(combined) > chunkSize) {
+                end = combined.length();
+            }
+            pending = end < 0 ? combined : combined.substring(end);
+            if (end > 0) {
+                sentences(combined.substring(0, end)).forEach(sentence -> add(sentence, chunks));
+            }
+            return chunks;
+        }
+
+        /**
+         * 结束切分，输出剩余的切片
+         */
+        public List<String> finish() {
+            List<String> chunks = new ArrayList<>();
+            sentences(pending).forEach(sentence -> add(sentence, chunks));
+            pending = "";
+            if (fresh > 0) {
+                emit(chunks);
+                fresh = 0;
+            }
+            return chunks;
+        }
+
+        private void add(Sentence sentence, List<String> chunks) {
+            if (windowTokens + sentence.tokens() > chunkSize && fresh > 0) {
+                emit(chunks);
+                // 从窗口头部移除句子，直到剩余部分不超过重叠预算
+                while (!window.isEmpty() && (windowTokens > chunkOverlap || windowTokens + sentence.tokens() > chunkSize)) {
+                    windowTokens -= window.removeFirst().tokens();
+                }
+                fresh = 0;
+            }
+            window.addLast(sentence);
+            windowTokens += sentence.tokens();
+            fresh++;
+        }
+
+        private void emit(List<String> chunks) {
+            StringBuilder builder = new StringBuilder();
+            window.forEach(sentence -> builder.append(sentence.text()));
+            String chunk = builder.toString().trim();
+            if (chunk.length() >= minChunkChars) {
+                chunks.add(chunk);
+            }
+        }
+
+        /**
+         * 最后一个断句位置（标点之后），没有时返回 -1
+         */
+        private int lastBoundary(String text) {
+            Matcher matcher = SENTENCE_BOUNDARY.matcher(text);
+            int end = -1;
+            while (matcher.find()) {
+                end = matcher.end();
+            }
+            return end;
+        }
+    }
+
+    private record Sentence(String text, int tokens) {
+    }
+}
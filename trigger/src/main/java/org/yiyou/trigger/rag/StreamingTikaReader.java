@@ -0,0 +1,206 @@
+package org.yiyou.trigger.rag;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.pdf.PDFParserConfig;
+import org.apache.tika.sax.BodyContentHandler;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.InputStream;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 流式解析文档：Tika 在独立线程上以 SAX 事件推送正文，在段落、页面边界累积成段交给调用方
+ * <p>
+ * 已解析、未释放的正文按字节计数，超过上限时解析线程阻塞，直到调用方写完前面的段并 release，
+ * 堆上待写入的正文只与上限有关，与文件大小无关。解析器自身的内存另算：PDF 的缓冲超过 pdfMaxMainMemory
+ * 后转存临时文件，但 PDFBox 的对象树仍按页数占用堆，其他格式按 Tika 各解析器的实现。
+ * 调用方循环 next() 直到返回 null，用完后 close()；调用方持有的段超过上限一半之前必须 release，否则解析线程可能拿不到额度。
+ */
+@Slf4j
+public class StreamingTikaReader implements AutoCloseable {
+
+    /**
+     * 可以在其结束处切段的元素，PDF 每页是一个 div
+     */
+    private static final Set<String> SECTION_ELEMENTS = Set.of("p", "div", "h1", "h2", "h3", "h4", "h5", "h6",
+            "li", "tr", "table", "pre", "blockquote");
+
+    private static final Object END = new Object();
+
+    private final String name;
+    private final int sectionChars;
+    private final int maxPermits;
+    private final long pdfMaxMainMemoryBytes;
+    private final Semaphore inFlight;
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final Future<?> parsing;
+    private volatile boolean closed;
+
+    public StreamingTikaReader(Resource resource, ExecutorService executor, int sectionChars, DataSize maxInFlight,
+                               DataSize pdfMaxMainMemory) {
+        this.name = resource.getFilename();
+        this.sectionChars = sectionChars;
+        this.pdfMaxMainMemoryBytes = pdfMaxMainMemory.toBytes();
+        this.maxPermits = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxInFlight.toBytes()));
+        this.inFlight = new Semaphore(maxPermits);
+        this.parsing = executor.submit(() -> parse(resource));
+    }
+
+    /**
+     * 取下一段正文，解析线程还没有产出时阻塞
+     *
+     * @return 下一段，文档结束时返回 null
+     */
+    public Segment next() throws InterruptedException {
+        Object item = queue.take();
+        if (item == END) {
+            // 留在队列里，重复调用仍然返回 null
+            queue.add(END);
+            return null;
+        }
+        if (item instanceof Throwable cause) {
+            queue.add(cause);
+            throw new IllegalStateException("文档解析失败：" + name, cause);
+        }
+        return (Segment) item;
+    }
+
+    /**
+     * 中止解析，解析线程如果阻塞在等待额度上会被中断
+     */
+    @Override
+    public void close() {
+        closed = true;
+        parsing.cancel(true);
+    }
+
+    private void parse(Resource resource) {
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, name);
+        // 本地文件直接按路径打开，PDF 等需要随机访问的格式不必先整个读进内存或另存临时文件
+        try (InputStream in = resource.isFile()
+                ? TikaInputStream.get(resource.getFile().toPath(), metadata)
+                : TikaInputStream.get(resource.getInputStream())) {
+            new AutoDetectParser().parse(in, new BodyContentHandler(new SectionHandler()), metadata, parseContext());
+            queue.add(END);
+        } catch (Throwable e) {
+            if (closed) {
+                log.debug("文档解析已中止 {}", name);
+                return;
+            }
+            queue.add(e);
+        }
+    }
+
+    /**
+     * PDFBox 使用混合内存模式，缓冲超过上限的部分写到临时文件
+     */
+    private ParseContext parseContext() {
+        PDFParserConfig pdfConfig = new PDFParserConfig();
+        pdfConfig.setMaxMainMemoryBytes(pdfMaxMainMemoryBytes);
+        ParseContext context = new ParseContext();
+        context.set(PDFParserConfig.class, pdfConfig);
+        return context;
+    }
+
+    /**
+     * 一段正文，写入完成后调用 release 归还额度
+     */
+    public final class Segment {
+
+        private final String text;
+        private final int permits;
+        private boolean released;
+
+        private Segment(String text, int permits) {
+            this.text = text;
+            this.permits = permits;
+        }
+
+        public String text() {
+            return text;
+        }
+
+        /**
+         * 占用的额度（字节）
+         */
+        public int bytes() {
+            return permits;
+        }
+
+        public synchronized void release() {
+            if (!released) {
+                released = true;
+                inFlight.release(permits);
+            }
+        }
+    }
+
+    /**
+     * 累积正文，到达段长后在下一个段落边界输出；一直没有边界时到两倍段长强制输出
+     * 换行由 Tika 在块级元素之后以 ignorableWhitespace 推送，拼接结果与 BodyContentHandler 的文本一致
+     */
+    private class SectionHandler extends DefaultHandler {
+
+        private final StringBuilder buffer = new StringBuilder();
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            buffer.append(ch, start, length);
+            if (buffer.length() >= 2 * sectionChars) {
+                flush();
+            }
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+            characters(ch, start, length);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if (buffer.length() >= sectionChars && SECTION_ELEMENTS.contains(localName)) {
+                flush();
+            }
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            flush();
+        }
+
+        private void flush() throws SAXException {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            String text = buffer.toString();
+            buffer.setLength(0);
+            // 按 UTF-16 估算堆占用；单段最多占一半额度，调用方持有不到一半时解析线程总能继续
+            int permits = (int) Math.min(Math.max(1, maxPermits / 2), 2L * text.length());
+            try {
+                inFlight.acquire(permits);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SAXException("文档解析已中止：" + name, e);
+            }
+            if (closed) {
+                inFlight.release(permits);
+                throw new SAXException("文档解析已中止：" + name);
+            }
+            queue.add(new Segment(text, permits));
+        }
+    }
+}
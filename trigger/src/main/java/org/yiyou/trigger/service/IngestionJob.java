@@ -0,0 +1,109 @@
+package org.yiyou.trigger.service;
+
+import lombok.Getter;
+import org.yiyou.api.dto.IngestionJobDTO;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一次上传对应的入库任务，文件在线程池中并行处理，进度由各文件回调累加
+ */
+@Getter
+public class IngestionJob {
+
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    private final String jobId;
+    private final String ragTag;
+    private final int totalFiles;
+    private final long startTime = System.currentTimeMillis();
+    private final AtomicInteger completedFiles = new AtomicInteger();
+    private final AtomicLong chunks = new AtomicLong();
+    private final AtomicLong addedChunks = new AtomicLong();
+    private final AtomicLong removedChunks = new AtomicLong();
+    private final AtomicInteger failedFiles = new AtomicInteger();
+    /**
+     * 失败文件（序号/文件名）-> 失败原因，上传的文件可能同名，键带上序号
+     */
+    private final Map<String, String> failures = new ConcurrentHashMap<>();
+    private volatile long endTime;
+
+    public IngestionJob(String jobId, String ragTag, int totalFiles) {
+        this.jobId = jobId;
+        this.ragTag = ragTag;
+        this.totalFiles = totalFiles;
+    }
+
+    /**
+     * 记录文件成功
+     *
+     * @return 所有文件是否都已结束
+     */
+    boolean succeed(RagIngestionService.FileIngestionResult result) {
+        chunks.addAndGet(result.chunks());
+        addedChunks.addAndGet(result.added());
+        removedChunks.addAndGet(result.removed());
+        completedFiles.incrementAndGet();
+        return finishIfDone();
+    }
+
+    /**
+     * 记录文件失败
+     *
+     * @param index 文件在本次上传中的序号
+     * @return 所有文件是否都已结束
+     */
+    boolean fail(int index, String fileName, String reason) {
+        failures.put(index + "/" + fileName, reason);
+        failedFiles.incrementAndGet();
+        return finishIfDone();
+    }
+
+    private boolean finishIfDone() {
+        if (completedFiles.get() + failedFiles.get() < totalFiles) {
+            return false;
+        }
+        synchronized (this) {
+            if (endTime != 0) {
+                return false;
+            }
+            endTime = System.currentTimeMillis();
+            return true;
+        }
+    }
+
+    public boolean isFinished() {
+        return endTime != 0;
+    }
+
+    public String getStatus() {
+        if (!isFinished()) {
+            return RUNNING;
+        }
+        return completedFiles.get() == 0 ? FAILED : COMPLETED;
+    }
+
+    public IngestionJobDTO toDTO() {
+        long elapsed = (isFinished() ? endTime : System.currentTimeMillis()) - startTime;
+        return IngestionJobDTO.builder()
+                .jobId(jobId)
+                .ragTag(ragTag)
+                .status(getStatus())
+                .totalFiles(totalFiles)
+                .completedFiles(completedFiles.get())
+                .failedFiles(failedFiles.get())
+                .chunks(chunks.get())
+                .addedChunks(addedChunks.get())
+                .removedChunks(removedChunks.get())
+                .elapsedMillis(elapsed)
+                .chunksPerSecond(elapsed == 0 ? 0 : chunks.get() * 1000.0 / elapsed)
+                .failures(new LinkedHashMap<>(failures))
+                .build();
+    }
+}
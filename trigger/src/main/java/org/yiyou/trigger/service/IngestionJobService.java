@@ -0,0 +1,174 @@
+package org.yiyou.trigger.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.multipart.MultipartFile;
+import org.yiyou.trigger.cache.RetrievalCache;
+import org.yiyou.trigger.cache.SemanticAnswerCache;
+import org.yiyou.trigger.config.RagIngestionProperties;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 入库任务调度：上传文件先落盘，再交给专用线程池并行解析、向量化，调用方按任务 ID 轮询进度
+ */
+@Slf4j
+@Service
+public class IngestionJobService implements DisposableBean {
+
+    private final RagIngestionService ragIngestionService;
+    private final RagTagService ragTagService;
+    private final RetrievalCache retrievalCache;
+    private final SemanticAnswerCache semanticAnswerCache;
+    private final RagIngestionProperties properties;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+
+    public IngestionJobService(RagIngestionService ragIngestionService, RagTagService ragTagService, RetrievalCache retrievalCache,
+                               SemanticAnswerCache semanticAnswerCache, RagIngestionProperties properties) {
+        this.ragIngestionService = ragIngestionService;
+        this.ragTagService = ragTagService;
+        this.retrievalCache = retrievalCache;
+        this.semanticAnswerCache = semanticAnswerCache;
+        this.properties = properties;
+        this.executor = new ThreadPoolExecutor(properties.getParallelism(), properties.getParallelism(),
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(properties.getQueueCapacity()),
+                new CustomizableThreadFactory("rag-ingestion-"));
+    }
+
+    /**
+     * 提交入库任务
+     *
+     * @return 任务 ID
+     * @throws RejectedExecutionException 等待队列已满
+     * @throws IOException                创建任务目录失败
+     * @throws IllegalArgumentException   文件名不合法
+     */
+    public IngestionJob submit(String ragTag, List<MultipartFile> files) throws IOException {
+        if (executor.getQueue().remainingCapacity() < files.size()) {
+            throw new RejectedExecutionException("入库队列已满，请稍后重试");
+        }
+        // 先校验全部文件名，不合法时不创建任务
+        List<String> fileNames = files.stream().map(file -> fileName(file.getOriginalFilename())).toList();
+        evictExpiredJobs();
+
+        // 请求结束后 MultipartFile 的临时文件会被清理，先转存到任务目录
+        Path workDir = Files.createTempDirectory("rag-ingestion-");
+        IngestionJob job = new IngestionJob(UUID.randomUUID().toString(), ragTag, files.size());
+        jobs.put(job.getJobId(), job);
+
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            String fileName = fileNames.get(i);
+            // 加序号前缀，避免同名文件互相覆盖
+            try {
+                Path target = Files.createDirectory(workDir.resolve(String.valueOf(i))).resolve(fileName);
+                file.transferTo(target);
+                int index = i;
+                executor.execute(() -> process(job, index, target, workDir));
+            } catch (IOException e) {
+                log.error("上传文件落盘失败 {} {}", job.getJobId(), fileName, e);
+                finish(job, job.fail(i, fileName, "文件保存失败"), workDir);
+            } catch (RejectedExecutionException e) {
+                finish(job, job.fail(i, fileName, "入库队列已满"), workDir);
+            }
+        }
+        log.info("入库任务已提交 {} 标签 {} 文件数 {}", job.getJobId(), ragTag, files.size());
+        return job;
+    }
+
+    public IngestionJob get(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * 删除标签下的一个源文档，文件名与上传时一致
+     *
+     * @return 删除的切片数，文档不存在时为 0
+     * @throws IllegalArgumentException 文件名不合法
+     */
+    public int deleteDocument(String ragTag, String fileName) {
+        int removed = ragIngestionService.delete(ragTag, fileName(fileName));
+        if (removed > 0) {
+            invalidateCaches(ragTag);
+        }
+        return removed;
+    }
+
+    /**
+     * 去掉路径只保留文件名，作为文档在标签下的标识
+     *
+     * @throws IllegalArgumentException 文件名含有路径中不允许的字符（如 NUL）
+     */
+    private static String fileName(String originalFilename) {
+        try {
+            Path path = Path.of(StringUtils.defaultString(originalFilename)).getFileName();
+            return path == null ? "file" : StringUtils.defaultIfBlank(path.toString(), "file");
+        } catch (InvalidPathException e) {
+            throw new IllegalArgumentException("文件名不合法", e);
+        }
+    }
+
+    /**
+     * 标签下的文档变化后，检索结果和基于旧检索结果的回答都要失效
+     */
+    private void invalidateCaches(String ragTag) {
+        retrievalCache.invalidate(ragTag);
+        semanticAnswerCache.invalidate(ragTag);
+    }
+
+    private void process(IngestionJob job, int index, Path file, Path workDir) {
+        boolean done;
+        try {
+            done = job.succeed(ragIngestionService.ingest(new FileSystemResource(file), job.getRagTag()));
+        } catch (Exception e) {
+            log.error("文件入库失败 {} {}", job.getJobId(), file.getFileName(), e);
+            done = job.fail(index, file.getFileName().toString(), Objects.toString(e.getMessage(), e.getClass().getName()));
+        }
+        finish(job, done, workDir);
+    }
+
+    private void finish(IngestionJob job, boolean done, Path workDir) {
+        if (!done) {
+            return;
+        }
+        try {
+            FileSystemUtils.deleteRecursively(workDir);
+        } catch (IOException e) {
+            log.warn("清理入库临时目录失败 {}", workDir, e);
+        }
+        if (job.getCompletedFiles().get() > 0) {
+            invalidateCaches(job.getRagTag());
+            ragTagService.register(job.getRagTag());
+        }
+        log.info("入库任务结束 {} {}", job.getJobId(), job.toDTO());
+    }
+
+    private void evictExpiredJobs() {
+        long deadline = System.currentTimeMillis() - properties.getJobRetention().toMillis();
+        jobs.values().removeIf(job -> job.isFinished() && job.getEndTime() < deadline);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,240 @@
+package org.yiyou.trigger.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.tika.TikaDocumentReader;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.yiyou.trigger.config.RagIngestionProperties;
+import org.yiyou.trigger.rag.Bm25Index;
+import org.yiyou.trigger.rag.Bm25IndexSync;
+import org.yiyou.trigger.rag.DocumentManifest;
+import org.yiyou.trigger.rag.HanLPTokenizer;
+import org.yiyou.trigger.rag.OverlappingTokenTextSplitter;
+import org.yiyou.trigger.rag.StreamingTikaReader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 知识库入库：流式解析 -> 切片 -> 提取关键词 -> 分批向量化写入，同时写入 BM25 倒排索引
+ */
+@Slf4j
+@Service
+@EnableConfigurationProperties(RagIngestionProperties.class)
+public class RagIngestionService implements DisposableBean {
+
+    /**
+     * 切片关键词的元数据字段，检索时按该字段做关键词过滤
+     */
+    public static final String KNOWLEDGE_METADATA_KEY = "knowledge";
+
+    /**
+     * 切片所属知识库标签的元数据字段，检索时按该字段限定分区
+     */
+    public static final String RAG_TAG_METADATA_KEY = "ragTag";
+
+    private static final int DOCUMENT_LOCK_STRIPES = 64;
+
+    private final VectorStore vectorStore;
+    private final Bm25Index bm25Index;
+    private final Bm25IndexSync bm25IndexSync;
+    private final DocumentManifest documentManifest;
+    private final RagIngestionProperties properties;
+    private final OverlappingTokenTextSplitter textSplitter;
+    private final int batchSize;
+    private final ExecutorService parserExecutor;
+    // 同一文档的入库和删除串行执行，避免两次上传交叉修改清单
+    private final Lock[] documentLocks = new Lock[DOCUMENT_LOCK_STRIPES];
+
+    public RagIngestionService(VectorStore vectorStore,
+                               Bm25Index bm25Index,
+                               Bm25IndexSync bm25IndexSync,
+                               DocumentManifest documentManifest,
+                               RagIngestionProperties properties,
+                               @Value("${spring.ai.vectorstore.pgvector.max-document-batch-size:10000}") int batchSize) {
+        this.vectorStore = vectorStore;
+        this.bm25Index = bm25Index;
+        this.bm25IndexSync = bm25IndexSync;
+        this.documentManifest = documentManifest;
+        this.properties = properties;
+        this.batchSize = Math.max(1, Math.min(batchSize, properties.getWriteBatchSize()));
+        this.textSplitter = new OverlappingTokenTextSplitter(properties.getChunkSize(), properties.getChunkOverlap(), properties.getMinChunkChars());
+        // 每个入库中的文件占一个解析线程，数量由入库线程池限定
+        this.parserExecutor = Executors.newCachedThreadPool(new CustomizableThreadFactory("rag-parser-"));
+        Arrays.setAll(documentLocks, i -> new ReentrantLock());
+    }
+
+    /**
+     * 解析并写入单个文件
+     * 边解析边切片、写入，解析线程与写入之间按 max-in-flight-bytes 限流，待写入的正文不会整份留在内存；
+     * PDF 解析缓冲超过 pdf-max-main-memory 的部分写临时文件
+     * 同一标签下的同名文件视为同一文档的新版本，只向量化新增切片，删除消失的切片，未变的切片原样保留
+     *
+     * @return 本文件的切片数、新增和删除的切片数以及耗时
+     */
+    public FileIngestionResult ingest(Resource resource, String ragTag) {
+        long start = System.currentTimeMillis();
+        String source = resource.getFilename();
+        String documentId = DocumentManifest.documentId(ragTag, source);
+        Lock lock = documentLock(documentId);
+        lock.lock();
+        try {
+            Set<String> previous = documentManifest.get(documentId);
+            ChunkWriter writer = new ChunkWriter(documentId, source, ragTag, previous);
+            OverlappingTokenTextSplitter.Session session = textSplitter.session();
+            try (StreamingTikaReader reader = new StreamingTikaReader(resource, parserExecutor,
+                    properties.getSectionChars(), properties.getMaxInFlightBytes(), properties.getPdfMaxMainMemory())) {
+                StreamingTikaReader.Segment segment;
+                while ((segment = reader.next()) != null) {
+                    writer.add(session.append(segment.text()), segment);
+                }
+                writer.add(session.finish(), null);
+                writer.flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("文件入库被中断：" + source, e);
+            }
+
+            // 整个文件处理完才删除旧切片，中途失败时旧版本仍然完整可检索
+            List<String> removed = previous.stream().filter(id -> !writer.seen.contains(id)).toList();
+            removeChunks(documentId, removed);
+
+            FileIngestionResult result = new FileIngestionResult(source, writer.seen.size(), writer.added, removed.size(), System.currentTimeMillis() - start);
+            log.info("文件入库完成 {} 切片数 {} 新增 {} 删除 {} 耗时 {}ms", result.fileName(), result.chunks(), result.added(), result.removed(), result.elapsedMillis());
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 删除单个源文档的全部切片
+     *
+     * @return 删除的切片数，文档不存在时为 0
+     */
+    public int delete(String ragTag, String source) {
+        String documentId = DocumentManifest.documentId(ragTag, source);
+        Lock lock = documentLock(documentId);
+        lock.lock();
+        try {
+            Set<String> chunkIds = documentManifest.get(documentId);
+            removeChunks(documentId, chunkIds);
+            documentManifest.delete(documentId);
+            log.info("文档已删除 {} {} 切片数 {}", ragTag, source, chunkIds.size());
+            return chunkIds.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        parserExecutor.shutdownNow();
+    }
+
+    private void removeChunks(String documentId, Collection<String> chunkIds) {
+        if (chunkIds.isEmpty()) {
+            return;
+        }
+        List<String> ids = List.copyOf(chunkIds);
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<String> batch = ids.subList(from, Math.min(ids.size(), from + batchSize));
+            vectorStore.delete(batch);
+            bm25Index.remove(batch);
+            bm25IndexSync.unpublished(batch);
+            documentManifest.remove(documentId, batch);
+        }
+    }
+
+    private Lock documentLock(String documentId) {
+        return documentLocks[Math.floorMod(documentId.hashCode(), DOCUMENT_LOCK_STRIPES)];
+    }
+
+    /**
+     * 攒批写入向量库和 BM25 索引，一批写完后才归还这批切片来源段的额度
+     * 清单里已有的切片直接跳过，不做关键词提取和向量化
+     */
+    private class ChunkWriter {
+
+        private final String documentId;
+        private final String source;
+        private final String ragTag;
+        private final Set<String> previous;
+        private final Set<String> seen = new HashSet<>();
+        private final List<Document> batch = new ArrayList<>();
+        private final List<StreamingTikaReader.Segment> segments = new ArrayList<>();
+        private long heldBytes;
+        private int added;
+
+        private ChunkWriter(String documentId, String source, String ragTag, Set<String> previous) {
+            this.documentId = documentId;
+            this.source = source;
+            this.ragTag = ragTag;
+            this.previous = previous;
+        }
+
+        private void add(List<String> chunks, StreamingTikaReader.Segment segment) {
+            if (segment != null) {
+                segments.add(segment);
+                heldBytes += segment.bytes();
+            }
+            for (String chunk : chunks) {
+                String id = DocumentManifest.chunkId(documentId, chunk);
+                // 文档内重复的切片只保留一份
+                if (!seen.add(id) || previous.contains(id)) {
+                    continue;
+                }
+                batch.add(Document.builder()
+                        .id(id)
+                        .text(chunk)
+                        .metadata(TikaDocumentReader.METADATA_SOURCE, source)
+                        .metadata(RAG_TAG_METADATA_KEY, ragTag)
+                        .metadata(KNOWLEDGE_METADATA_KEY, HanLPTokenizer.keywords(chunk, properties.getMaxKeywords()))
+                        .build());
+                if (batch.size() >= batchSize) {
+                    flush();
+                }
+            }
+            // 持有的额度超过一半时提前写入，保证解析线程不会因为等额度而停住
+            if (heldBytes * 2 >= properties.getMaxInFlightBytes().toBytes()) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (!batch.isEmpty()) {
+                vectorStore.add(batch);
+                bm25Index.add(batch);
+                bm25IndexSync.published(batch.stream().map(Document::getId).toList());
+                documentManifest.add(documentId, batch.stream().map(Document::getId).toList());
+                added += batch.size();
+                batch.clear();
+            }
+            segments.forEach(StreamingTikaReader.Segment::release);
+            segments.clear();
+            heldBytes = 0;
+        }
+    }
+
+    /**
+     * @param chunks 文件当前的切片数
+     * @param added 本次新增（向量化）的切片数
+     * @param removed 本次删除的旧切片数
+     */
+    public record FileIngestionResult(String fileName, int chunks, int added, int removed, long elapsedMillis) {
+    }
+}
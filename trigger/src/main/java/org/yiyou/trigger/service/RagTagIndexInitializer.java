@@ -0,0 +1,45 @@
+package org.yiyou.trigger.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.yiyou.trigger.config.RagIngestionProperties;
+
+/**
+ * 在向量表的 metadata 上建立 jsonb_path_ops GIN 索引
+ * PgVectorStore 的过滤条件形如 metadata::jsonb @@ '$.ragTag == "x"'，该表达式索引可直接命中
+ */
+@Slf4j
+@Component
+public class RagTagIndexInitializer implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RagIngestionProperties properties;
+    private final String schemaName;
+    private final String tableName;
+
+    public RagTagIndexInitializer(JdbcTemplate jdbcTemplate, RagIngestionProperties properties,
+                                  @Value("${spring.ai.vectorstore.pgvector.schema-name:public}") String schemaName,
+                                  @Value("${spring.ai.vectorstore.pgvector.table-name:vector_store}") String tableName) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.schemaName = schemaName;
+        this.tableName = tableName;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.isCreateTagIndex()) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute(String.format("CREATE INDEX IF NOT EXISTS %s_metadata_path_idx ON %s.%s USING gin ((metadata::jsonb) jsonb_path_ops)",
+                    tableName, schemaName, tableName));
+        } catch (Exception e) {
+            log.warn("创建知识库标签索引失败，按标签过滤将退化为全表扫描", e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.yiyou.trigger.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.yiyou.trigger.constant.TriggerRedisConstant;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 知识库标签登记，标签保存在 Redis Set 中，登记和查询都是 O(1)
+ */
+@Slf4j
+@Service
+public class RagTagService implements InitializingBean {
+
+    /**
+     * 标签会作为字符串拼进向量库的过滤表达式（pgvector 转成 jsonpath 字面量，不做转义），
+     * 只允许字母（含中文）、数字、下划线和连字符
+     */
+    private static final Pattern VALID_TAG = Pattern.compile("[\\p{L}\\p{N}_-]{1,64}");
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public RagTagService(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    public static boolean isValid(String ragTag) {
+        return ragTag != null && VALID_TAG.matcher(ragTag).matches();
+    }
+
+    /**
+     * 校验请求传入的标签
+     *
+     * @param required 为 false 时允许不传（为空）
+     * @throws ResponseStatusException 400，标签不合法
+     */
+    public static void validate(String ragTag, boolean required) {
+        if (!required && (ragTag == null || ragTag.isBlank())) {
+            return;
+        }
+        if (!isValid(ragTag)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "知识库标签只能包含字母、数字、下划线和连字符，长度 1-64");
+        }
+    }
+
+    public void register(String ragTag) {
+        stringRedisTemplate.opsForSet().add(TriggerRedisConstant.TAG_RAG_SET_KEY, ragTag);
+    }
+
+    public List<String> list() {
+        Set<String> members = stringRedisTemplate.opsForSet().members(TriggerRedisConstant.TAG_RAG_SET_KEY);
+        List<String> tags = members == null ? new ArrayList<>() : new ArrayList<>(members);
+        Collections.sort(tags);
+        return tags;
+    }
+
+    /**
+     * 把旧版本写在 List 中的标签迁移到 Set
+     */
+    @Override
+    public void afterPropertiesSet() {
+        try {
+            List<String> legacy = stringRedisTemplate.opsForList().range(TriggerRedisConstant.TAG_RAG_KEY, 0, -1);
+            if (legacy == null || legacy.isEmpty()) {
+                return;
+            }
+            stringRedisTemplate.opsForSet().add(TriggerRedisConstant.TAG_RAG_SET_KEY, legacy.toArray(new String[0]));
+            stringRedisTemplate.delete(TriggerRedisConstant.TAG_RAG_KEY);
+            log.info("知识库标签已迁移到 Set {}", legacy);
+        } catch (Exception e) {
+            log.warn("知识库标签迁移失败，稍后重启时重试", e);
+        }
+    }
+}
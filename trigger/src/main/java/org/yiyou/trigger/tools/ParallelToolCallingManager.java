@@ -0,0 +1,221 @@
+package org.yiyou.trigger.tools;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.ToolExecutionException;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+import org.yiyou.trigger.config.ToolExecutionProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 并发执行同一轮响应中的多个工具调用，结果按模型给出的顺序返回
+ * <p>
+ * 工具定义解析沿用默认实现；执行时每个调用有独立超时，超时后中断执行线程，全局并发数有上限，
+ * 线程池排满后拒绝新的调用，把繁忙作为该调用的结果返回给模型，不会在调用线程上无超时地执行。
+ * 调用线程的 LocaleContext（时区、语言）会带到执行线程。
+ */
+@Slf4j
+public class ParallelToolCallingManager implements ToolCallingManager, DisposableBean {
+
+    private final ToolCallingManager delegate;
+    private final ToolCallbackResolver toolCallbackResolver;
+    private final ToolExecutionExceptionProcessor toolExecutionExceptionProcessor;
+    private final ToolExecutionProperties properties;
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+
+    public ParallelToolCallingManager(ToolCallbackResolver toolCallbackResolver,
+                                      ToolExecutionExceptionProcessor toolExecutionExceptionProcessor,
+                                      ToolExecutionProperties properties,
+                                      MeterRegistry meterRegistry) {
+        this.delegate = ToolCallingManager.builder()
+                .toolCallbackResolver(toolCallbackResolver)
+                .toolExecutionExceptionProcessor(toolExecutionExceptionProcessor)
+                .build();
+        this.toolCallbackResolver = toolCallbackResolver;
+        this.toolExecutionExceptionProcessor = toolExecutionExceptionProcessor;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.executor = new ThreadPoolExecutor(properties.getMaxInFlight(), properties.getMaxInFlight(),
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(properties.getQueueCapacity()),
+                new CustomizableThreadFactory("tool-call-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public List<ToolDefinition> resolveToolDefinitions(ToolCallingChatOptions chatOptions) {
+        return delegate.resolveToolDefinitions(chatOptions);
+    }
+
+    @Override
+    public ToolExecutionResult executeToolCalls(Prompt prompt, ChatResponse chatResponse) {
+        AssistantMessage assistantMessage = chatResponse.getResults().stream()
+                .map(Generation::getOutput)
+                .filter(output -> !CollectionUtils.isEmpty(output.getToolCalls()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No tool call requested by the chat model"));
+        List<AssistantMessage.ToolCall> toolCalls = assistantMessage.getToolCalls();
+        ToolContext toolContext = toolContext(prompt, assistantMessage);
+        List<ToolCallback> toolCallbacks = prompt.getOptions() instanceof ToolCallingChatOptions options ? options.getToolCallbacks() : List.of();
+
+        // 先在当前线程解析回调，找不到工具时和默认实现一样直接失败
+        List<ToolCallback> resolved = toolCalls.stream().map(toolCall -> resolve(toolCall.name(), toolCallbacks)).toList();
+        boolean returnDirect = resolved.stream().allMatch(callback -> callback.getToolMetadata().returnDirect());
+
+        long start = System.currentTimeMillis();
+        LocaleContext localeContext = LocaleContextHolder.getLocaleContext();
+        List<Future<ToolResponseMessage.ToolResponse>> futures = new ArrayList<>(toolCalls.size());
+        for (int i = 0; i < toolCalls.size(); i++) {
+            AssistantMessage.ToolCall toolCall = toolCalls.get(i);
+            ToolCallback toolCallback = resolved.get(i);
+            try {
+                // submit 返回的 FutureTask 在 cancel(true) 时会中断执行线程
+                futures.add(executor.submit(() -> call(toolCall, toolCallback, toolContext, localeContext)));
+            } catch (RejectedExecutionException e) {
+                log.warn("工具调用排队已满，拒绝执行 {}", toolCall.name());
+                futures.add(CompletableFuture.completedFuture(new ToolResponseMessage.ToolResponse(toolCall.id(), toolCall.name(),
+                        "工具调用繁忙，请稍后重试")));
+            }
+        }
+        // 调用同时开始，共用一个截止时间即为每个调用各自的超时
+        long deadline = System.nanoTime() + properties.getTimeout().toNanos();
+        List<ToolResponseMessage.ToolResponse> responses = new ArrayList<>(toolCalls.size());
+        for (int i = 0; i < toolCalls.size(); i++) {
+            responses.add(await(toolCalls.get(i), futures.get(i), deadline));
+        }
+        log.debug("工具调用 {} 个 耗时 {}ms", toolCalls.size(), System.currentTimeMillis() - start);
+
+        ToolResponseMessage toolResponseMessage = new ToolResponseMessage(responses, Map.of());
+        List<Message> conversationHistory = new ArrayList<>(prompt.copy().getInstructions());
+        conversationHistory.add(assistantMessage);
+        conversationHistory.add(toolResponseMessage);
+        return ToolExecutionResult.builder()
+                .conversationHistory(conversationHistory)
+                .returnDirect(returnDirect)
+                .build();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private ToolCallback resolve(String toolName, List<ToolCallback> toolCallbacks) {
+        ToolCallback toolCallback = toolCallbacks.stream()
+                .filter(callback -> toolName.equals(callback.getToolDefinition().name()))
+                .findFirst()
+                .orElseGet(() -> toolCallbackResolver.resolve(toolName));
+        if (toolCallback == null) {
+            throw new IllegalStateException("No ToolCallback found for tool name: " + toolName);
+        }
+        return toolCallback;
+    }
+
+    /**
+     * 在执行线程上恢复调用线程的 LocaleContext，执行完后清除，避免泄漏给线程池里的下一个调用
+     */
+    private ToolResponseMessage.ToolResponse call(AssistantMessage.ToolCall toolCall, ToolCallback toolCallback, ToolContext toolContext,
+                                                  LocaleContext localeContext) {
+        LocaleContextHolder.setLocaleContext(localeContext);
+        try {
+            return call(toolCall, toolCallback, toolContext);
+        } finally {
+            LocaleContextHolder.resetLocaleContext();
+        }
+    }
+
+    /**
+     * 每次调用记录 chat.tool.call{tool, outcome}，MCP 工具和本地工具都会经过这里
+     */
+    private ToolResponseMessage.ToolResponse call(AssistantMessage.ToolCall toolCall, ToolCallback toolCallback, ToolContext toolContext) {
+        String arguments = StringUtils.hasText(toolCall.arguments()) ? toolCall.arguments() : "{}";
+        String result;
+        String outcome = "success";
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            result = toolCallback.call(arguments, toolContext);
+        } catch (ToolExecutionException e) {
+            outcome = "error";
+            result = toolExecutionExceptionProcessor.process(e);
+        } catch (RuntimeException e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("chat.tool.call")
+                    .tag("tool", toolCall.name())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+        return new ToolResponseMessage.ToolResponse(toolCall.id(), toolCall.name(), result);
+    }
+
+    /**
+     * 超时的调用把错误信息作为结果返回给模型，不影响其他调用
+     */
+    private ToolResponseMessage.ToolResponse await(AssistantMessage.ToolCall toolCall, Future<ToolResponseMessage.ToolResponse> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("工具调用超时 {}", toolCall.name());
+            return new ToolResponseMessage.ToolResponse(toolCall.id(), toolCall.name(), "工具调用超时：" + properties.getTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("工具调用被中断", e);
+        } catch (ExecutionException e) {
+            // ToolExecutionException 已在 call 中转换，这里是其他异常，保持默认实现的行为向上抛出
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 与默认实现一致：只有配置了工具上下文时才传入，并附带工具调用前的对话历史
+     */
+    private static ToolContext toolContext(Prompt prompt, AssistantMessage assistantMessage) {
+        Map<String, Object> toolContextMap = Map.of();
+        if (prompt.getOptions() instanceof ToolCallingChatOptions options && !CollectionUtils.isEmpty(options.getToolContext())) {
+            toolContextMap = new HashMap<>(options.getToolContext());
+            List<Message> history = new ArrayList<>(prompt.copy().getInstructions());
+            history.add(assistantMessage);
+            toolContextMap.put(ToolContext.TOOL_CALL_HISTORY, history);
+        }
+        return new ToolContext(toolContextMap);
+    }
+}
@@ -0,0 +1,150 @@
+package org.yiyou.trigger.warmup;
+
+import com.hankcs.hanlp.HanLP;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.yiyou.trigger.config.WarmupProperties;
+import org.yiyou.trigger.mcp.McpToolCatalog;
+import org.yiyou.trigger.rag.ContextPacker;
+import org.yiyou.trigger.rag.HanLPTokenizer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 启动预热：并发加载分词词典、探测向量检索、完成 MCP 握手、用合成数据预热 JIT
+ * <p>
+ * 在 ApplicationRunner 中同步等待，Spring Boot 在所有 Runner 结束后才把就绪状态切换为 ACCEPTING_TRAFFIC，
+ * 因此 /actuator/health/readiness 在预热完成（或超时）前返回 OUT_OF_SERVICE，滚动发布不会把流量打到冷实例。
+ * 单个任务失败只记录日志，不阻止启动。
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@EnableConfigurationProperties(WarmupProperties.class)
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final String SAMPLE_TEXT = "会员在订单签收后七天内可以申请无理由退货，商品需保持完好并附带原包装。"
+            + "退款会在仓库验收后三个工作日内原路返回，使用积分抵扣的部分将退回积分账户。";
+
+    private final WarmupProperties properties;
+    private final VectorStore vectorStore;
+    private final McpToolCatalog mcpToolCatalog;
+    private final ContextPacker contextPacker;
+
+    public WarmupRunner(WarmupProperties properties, VectorStore vectorStore, McpToolCatalog mcpToolCatalog, ContextPacker contextPacker) {
+        this.properties = properties;
+        this.vectorStore = vectorStore;
+        this.mcpToolCatalog = mcpToolCatalog;
+        this.contextPacker = contextPacker;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Map<String, Runnable> tasks = new LinkedHashMap<>();
+        if (properties.isSegmenter()) {
+            tasks.put("segmenter", this::warmUpSegmenter);
+        }
+        if (properties.isVectorStore()) {
+            tasks.put("vectorStore", this::warmUpVectorStore);
+        }
+        if (properties.isMcp()) {
+            tasks.put("mcp", () -> mcpToolCatalog.load().block());
+        }
+        if (properties.getJitIterations() > 0) {
+            tasks.put("jit", this::warmUpJit);
+        }
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("warmup-");
+        threadFactory.setDaemon(true);
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size(), threadFactory);
+        Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        tasks.forEach((name, task) -> futures.put(name, CompletableFuture.runAsync(() -> timed(name, task), executor)));
+        try {
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+                    .get(properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            log.info("启动预热完成 耗时 {}ms", System.currentTimeMillis() - start);
+        } catch (TimeoutException e) {
+            List<String> pending = new ArrayList<>();
+            futures.forEach((name, future) -> {
+                if (!future.isDone()) {
+                    pending.add(name);
+                }
+            });
+            log.warn("启动预热未在 {} 内完成，未完成的任务在后台继续 {}", properties.getTimeout(), pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("启动预热异常", e);
+        } finally {
+            // 超时未完成的任务继续执行，执行完后线程退出
+            executor.shutdown();
+        }
+    }
+
+    private void timed(String name, Runnable task) {
+        long start = System.currentTimeMillis();
+        try {
+            task.run();
+            log.info("预热任务完成 {} 耗时 {}ms", name, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("预热任务失败 {} 耗时 {}ms {}", name, System.currentTimeMillis() - start, e.toString());
+        }
+    }
+
+    /**
+     * 词典在第一次分词时懒加载，核心词典、停用词和 TextRank 分别触发一次
+     */
+    private void warmUpSegmenter() {
+        HanLP.segment(SAMPLE_TEXT);
+        HanLPTokenizer.tokenize(SAMPLE_TEXT);
+        HanLPTokenizer.keywords(SAMPLE_TEXT, 8);
+    }
+
+    /**
+     * 直接查向量库，绕过检索缓存，让索引页进入数据库缓存并建立连接池中的连接
+     */
+    private void warmUpVectorStore() {
+        vectorStore.similaritySearch(SearchRequest.builder().query(properties.getProbeQuery()).topK(1).build());
+    }
+
+    /**
+     * 只跑进程内的热点代码，不调用模型，也不产生请求指标
+     */
+    private void warmUpJit() {
+        TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+        Query query = new Query(properties.getProbeQuery());
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            documents.add(Document.builder().id("warmup-" + i).text(SAMPLE_TEXT.substring(i * 4)).score(1.0 - i * 0.1).build());
+        }
+        for (int i = 0; i < properties.getJitIterations(); i++) {
+            HanLPTokenizer.tokenize(SAMPLE_TEXT);
+            tokenCountEstimator.estimate(SAMPLE_TEXT);
+            contextPacker.process(query, documents);
+        }
+    }
+}
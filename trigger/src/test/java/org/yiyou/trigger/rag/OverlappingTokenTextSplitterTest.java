@@ -0,0 +1,97 @@
+package org.yiyou.trigger.rag;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 流式切分与一次性切分整段文本的结果一致
+ */
+class OverlappingTokenTextSplitterTest {
+
+    private static final String[] WORDS = {"知识库", "向量", "检索", "切片", "重叠", "文档", "解析", "token", "chunk", "overlap", "PDF", "入库"};
+    private static final String[] TERMINATORS = {"。", "！", "？", "；", "!", "?", ";", "\n", "。\n"};
+
+    private final OverlappingTokenTextSplitter splitter = new OverlappingTokenTextSplitter(64, 16, 1);
+
+    @Test
+    void streamingMatchesWholeTextForAnySegmentSize() {
+        String text = text(new Random(42), 400);
+        List<String> expected = splitter.splitText(text);
+        assertTrue(expected.size() > 10, "样本应产生多个切片");
+
+        for (int segmentChars : new int[]{1, 3, 17, 256, 4096, text.length()}) {
+            assertEquals(expected, stream(text, fixedCuts(text.length(), segmentChars)), "段长 " + segmentChars);
+        }
+    }
+
+    @Test
+    void streamingMatchesWholeTextForRandomCuts() {
+        Random random = new Random(7);
+        String text = text(random, 400);
+        List<String> expected = splitter.splitText(text);
+
+        for (int round = 0; round < 20; round++) {
+            List<Integer> cuts = new ArrayList<>();
+            for (int at = random.nextInt(50) + 1; at < text.length(); at += random.nextInt(300) + 1) {
+                cuts.add(at);
+            }
+            assertEquals(expected, stream(text, cuts), "切分点 " + cuts);
+        }
+    }
+
+    @Test
+    void longSentenceSpanningSegmentsIsCutLikeWholeText() {
+        // 超过 chunkSize 的长句按字符硬切；断句标点和句子在同一次拼接中出现时，硬切位置与整段切分相同
+        String longSentence = "超长句子没有标点".repeat(40) + "。";
+        String text = "开头的一句话。" + longSentence + "结尾的一句话。后面还有一句。";
+        List<String> expected = splitter.splitText(text);
+
+        int cut = text.indexOf("结尾的") + 2;
+        assertEquals(expected, stream(text, List.of(3, cut)));
+    }
+
+    private List<String> stream(String text, List<Integer> cuts) {
+        OverlappingTokenTextSplitter.Session session = splitter.session();
+        List<String> chunks = new ArrayList<>();
+        int from = 0;
+        for (int cut : cuts) {
+            chunks.addAll(session.append(text.substring(from, cut)));
+            from = cut;
+        }
+        chunks.addAll(session.append(text.substring(from)));
+        chunks.addAll(session.finish());
+        return chunks;
+    }
+
+    private static List<Integer> fixedCuts(int length, int segmentChars) {
+        List<Integer> cuts = new ArrayList<>();
+        for (int at = segmentChars; at < length; at += segmentChars) {
+            cuts.add(at);
+        }
+        return cuts;
+    }
+
+    /**
+     * 中英文混排的句子，每句不超过 chunkSize
+     */
+    private static String text(Random random, int sentences) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < sentences; i++) {
+            int words = random.nextInt(8) + 1;
+            for (int j = 0; j < words; j++) {
+                builder.append(WORDS[random.nextInt(WORDS.length)]);
+                if (random.nextInt(4) == 0) {
+                    builder.append(' ');
+                }
+            }
+            builder.append(TERMINATORS[random.nextInt(TERMINATORS.length)]);
+        }
+        return builder.toString();
+    }
+}